@@ -33,14 +33,18 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
 
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.Pseudo;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
 import org.spongepowered.asm.mixin.injection.selectors.ISelectorContext;
 import org.spongepowered.asm.mixin.injection.struct.SelectorAnnotationContext;
 import org.spongepowered.asm.mixin.refmap.IMixinContext;
+import org.spongepowered.asm.mixin.refmap.MixinIndex;
 import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.util.asm.IAnnotatedElement;
@@ -169,6 +173,16 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
      * True once the FINAL 
      */
     private boolean validated = false;
+    
+    /**
+     * Number of injectors registered in this mixin
+     */
+    private int injectorCount;
+
+    /**
+     * Number of accessors and invokers registered in this mixin
+     */
+    private int accessorCount;
 
     public AnnotatedMixin(IMixinAnnotationProcessor ap, TypeElement type) {
         this.typeProvider = ap.getTypeProvider();
@@ -403,6 +417,7 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
 
     public void registerInjector(ExecutableElement method, AnnotationHandle inject, InjectorRemap remap) {
         this.removeMethod(method);
+        this.injectorCount++;
         AnnotatedElementInjector injectorElement = new AnnotatedElementInjector(method, inject, this, remap);
         this.injectors.registerInjector(injectorElement);
 
@@ -446,11 +461,13 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
     
     public void registerAccessor(ExecutableElement element, AnnotationHandle accessor, boolean shouldRemap) {
         this.removeMethod(element);
+        this.accessorCount++;
         this.accessors.registerAccessor(new AnnotatedElementAccessor(element, accessor, this, shouldRemap));
     }
 
     public void registerInvoker(ExecutableElement element, AnnotationHandle invoker, boolean shouldRemap) {
         this.removeMethod(element);
+        this.accessorCount++;
         this.accessors.registerAccessor(new AnnotatedElementInvoker(element, invoker, this, shouldRemap));
     }
 
@@ -458,6 +475,43 @@ class AnnotatedMixin implements IMixinContext, IAnnotatedElement {
         this.softImplements.process(implementsAnnotation);
     }
 
+    /**
+     * Create the mixin index entry for this mixin. Public targets are recorded
+     * by their compile-time names, and mappings for them are added to the
+     * refmap so that they can be remapped at runtime in the same way as soft
+     * targets, since reobfuscation does not rewrite the index.
+     */
+    public MixinIndex.Entry createIndexEntry() {
+        MixinIndex.Entry entry = new MixinIndex.Entry();
+        for (Object target : this.annotation.<Object>getList()) {
+            TypeHandle type = this.typeProvider.getTypeHandle(target);
+            if (type != null) {
+                ObfuscationData<String> obfClassData = this.obf.getDataProvider().getObfClass(type);
+                if (!obfClassData.isEmpty()) {
+                    this.obf.getReferenceManager().addClassMapping(this.classRef, type.getName(), obfClassData);
+                }
+                entry.addPublicTarget(type.getName());
+            }
+        }
+        for (String softTarget : this.annotation.<String>getList("targets")) {
+            entry.addPrivateTarget(softTarget);
+        }
+        
+        int methodCount = 0;
+        for (ExecutableElement method : ElementFilter.methodsIn(this.mixin.getEnclosedElements())) {
+            if (!AnnotationHandle.of(method, Accessor.class).exists() && !AnnotationHandle.of(method, Invoker.class).exists()) {
+                methodCount++;
+            }
+        }
+        
+        return entry.setPriority(this.annotation.<Integer>getValue("priority"))
+                .setPseudo(this.virtual)
+                .setInterface(this.isInterface())
+                .setMethodCount(methodCount)
+                .setAccessorCount(this.accessorCount)
+                .setInjectorCount(this.injectorCount);
+    }
+
     @Override
     public ReferenceMapper getReferenceMapper() {
         return null;
@@ -59,6 +59,7 @@ import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
+import org.spongepowered.asm.mixin.refmap.MixinIndex;
 import org.spongepowered.asm.util.ITokenProvider;
 import org.spongepowered.asm.util.VersionNumber;
 import org.spongepowered.asm.util.logging.MessageRouter;
@@ -329,11 +330,31 @@ final class AnnotatedMixins implements IMixinAnnotationProcessor, ITokenProvider
     }
 
     /**
-     * Write out stored references
+     * Write out stored references, and the mixin index if it was requested
+     * with the <tt>mixinIndex</tt> option
      */
     public void writeReferences() {
+        if (this.isMixinIndexEnabled()) {
+            MixinIndex index = this.obf.getReferenceManager().getIndex();
+            for (AnnotatedMixin mixin : this.mixins.values()) {
+                index.add(mixin.getClassRef(), mixin.createIndexEntry());
+            }
+        }
         this.obf.writeReferences();
     }
+    
+    /**
+     * The mixin index is opt-in, since indexed mixins are validated when their
+     * targets load rather than during prepare. The option can be specified
+     * either as a bare flag or with the value <tt>true</tt>.
+     */
+    private boolean isMixinIndexEnabled() {
+        Map<String, String> options = this.processingEnv.getOptions();
+        if (options.containsKey(SupportedOptions.MIXIN_INDEX) && options.get(SupportedOptions.MIXIN_INDEX) == null) {
+            return true;
+        }
+        return "true".equalsIgnoreCase(this.getOption(SupportedOptions.MIXIN_INDEX));
+    }
 
     /**
      * Clear all registered mixins
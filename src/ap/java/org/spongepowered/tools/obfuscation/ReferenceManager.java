@@ -36,6 +36,7 @@ import javax.tools.StandardLocation;
 
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorRemappable;
 import org.spongepowered.asm.mixin.injection.struct.MemberInfo;
+import org.spongepowered.asm.mixin.refmap.MixinIndex;
 import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
@@ -92,6 +93,11 @@ public class ReferenceManager implements IReferenceManager {
      */
     private final ReferenceMapper refMapper = new ReferenceMapper();
     
+    /**
+     * Mixin index, written next to the refmap 
+     */
+    private final MixinIndex index = new MixinIndex();
+    
     private boolean allowConflicts;
     
     public ReferenceManager(IMixinAnnotationProcessor ap, List<ObfuscationEnvironment> environments) {
@@ -137,12 +143,33 @@ public class ReferenceManager implements IReferenceManager {
         } catch (IOException ex) {
             ex.printStackTrace();
         } finally {
+            ReferenceManager.close(writer);
+        }
+        
+        if (this.index.isEmpty()) {
+            return;
+        }
+        
+        writer = null;
+        
+        try {
+            writer = this.newWriter(MixinIndex.getResourceName(this.outRefMapFileName), "mixin index");
             if (writer != null) {
-                try {
-                    writer.close();
-                } catch (Exception ex) {
-                    // oh well
-                }
+                this.index.write(writer);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            ReferenceManager.close(writer);
+        }
+    }
+    
+    private static void close(PrintWriter writer) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (Exception ex) {
+                // oh well
             }
         }
     }
@@ -189,6 +216,15 @@ public class ReferenceManager implements IReferenceManager {
         return this.refMapper;
     }
 
+    /* (non-Javadoc)
+     * @see org.spongepowered.tools.obfuscation.interfaces.IReferenceManager
+     *      #getIndex()
+     */
+    @Override
+    public MixinIndex getIndex() {
+        return this.index;
+    }
+
     /* (non-Javadoc)
      * @see org.spongepowered.tools.obfuscation.interfaces.IObfuscationManager
      *      #addMethodMapping(java.lang.String, java.lang.String,
@@ -51,6 +51,7 @@ public final class SupportedOptions {
     public static final String QUIET                     = "quiet";
     public static final String SHOW_MESSAGE_TYPES        = "showMessageTypes";
     public static final String DISABLE_INTERFACE_MIXINS  = "disableInterfaceMixins";
+    public static final String MIXIN_INDEX               = "mixinIndex";
     
     private SupportedOptions() {}
 
@@ -72,7 +73,8 @@ public final class SupportedOptions {
             SupportedOptions.PLUGIN_VERSION,
             SupportedOptions.QUIET,
             SupportedOptions.SHOW_MESSAGE_TYPES,
-            SupportedOptions.DISABLE_INTERFACE_MIXINS
+            SupportedOptions.DISABLE_INTERFACE_MIXINS,
+            SupportedOptions.MIXIN_INDEX
         );
         options.addAll(
             ObfuscationServices.getInstance().getSupportedOptions()
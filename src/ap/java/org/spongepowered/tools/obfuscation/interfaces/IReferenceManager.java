@@ -25,6 +25,7 @@
 package org.spongepowered.tools.obfuscation.interfaces;
 
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorRemappable;
+import org.spongepowered.asm.mixin.refmap.MixinIndex;
 import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingField;
 import org.spongepowered.asm.obfuscation.mapping.common.MappingMethod;
@@ -64,6 +65,11 @@ public interface IReferenceManager {
      */
     public abstract ReferenceMapper getMapper();
 
+    /**
+     * Get the mixin index which is written alongside the refmap
+     */
+    public abstract MixinIndex getIndex();
+
     /**
      * Adds a method mapping to the internal refmap
      * 
@@ -0,0 +1,355 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service.bake;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
+import org.spongepowered.asm.launch.platform.container.ContainerHandleVirtual;
+import org.spongepowered.asm.launch.platform.container.IContainerHandle;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.logging.LoggerAdapterConsole;
+import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformerFactory;
+import org.spongepowered.asm.service.IClassBytecodeProvider;
+import org.spongepowered.asm.service.IClassProvider;
+import org.spongepowered.asm.service.IClassTracker;
+import org.spongepowered.asm.service.IMixinAuditTrail;
+import org.spongepowered.asm.service.IMixinInternal;
+import org.spongepowered.asm.service.ITransformerProvider;
+import org.spongepowered.asm.service.MixinServiceAbstract;
+import org.spongepowered.asm.transformers.MixinClassReader;
+import org.spongepowered.asm.util.IConsumer;
+import org.spongepowered.asm.util.asm.ASM;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+
+/**
+ * Headless mixin service used by the offline mixin baker. Classes and resources
+ * are supplied from a plain classpath (the input jars plus any libraries they
+ * depend on) and no other transformers are present. The service is only valid
+ * when the baker has activated it by setting the {@link #ACTIVE_PROPERTY}
+ * system property, so it never competes with a real launcher service.
+ */
+public class MixinServiceBake extends MixinServiceAbstract implements IClassProvider, IClassBytecodeProvider {
+    
+    /**
+     * System property which must be set to <tt>true</tt> for this service to be
+     * considered valid
+     */
+    public static final String ACTIVE_PROPERTY = "mixin.bake.active";
+    
+    /**
+     * Class path entries supplied by the baker
+     */
+    private final List<URL> sources = new ArrayList<URL>();
+    
+    /**
+     * Class loader over {@link #sources}, created on first use
+     */
+    private URLClassLoader classLoader;
+    
+    /**
+     * Transformer factory, from bootstrap
+     */
+    private IMixinTransformerFactory transformerFactory;
+    
+    /**
+     * Transformer instance, created on demand
+     */
+    private IMixinTransformer transformer;
+    
+    /**
+     * Callback used to advance to the DEFAULT phase
+     */
+    private IConsumer<Phase> phaseConsumer;
+    
+    /**
+     * True if the active property is set
+     */
+    public static boolean isActive() {
+        return Boolean.parseBoolean(System.getProperty(MixinServiceBake.ACTIVE_PROPERTY));
+    }
+    
+    /**
+     * Add a class path entry to this service. Entries must be added before the
+     * first class or resource is requested from the service.
+     * 
+     * @param source class path entry to add
+     */
+    public void addSource(URL source) {
+        Preconditions.checkState(this.classLoader == null, "Cannot add sources once the bake class loader is initialised");
+        this.sources.add(source);
+    }
+    
+    /**
+     * Get the class loader which provides classes and resources for this
+     * service
+     */
+    public synchronized ClassLoader getClassLoader() {
+        if (this.classLoader == null) {
+            this.classLoader = new URLClassLoader(this.sources.toArray(new URL[0]), MixinServiceBake.class.getClassLoader());
+        }
+        return this.classLoader;
+    }
+    
+    /**
+     * Move the environment to the DEFAULT phase, called by the baker once all
+     * configurations have been added
+     */
+    public void onStartup() {
+        if (this.phaseConsumer != null) {
+            this.phaseConsumer.accept(Phase.DEFAULT);
+        }
+    }
+    
+    /**
+     * Get the mixin transformer, creating it if necessary
+     */
+    public IMixinTransformer getTransformer() {
+        if (this.transformer == null) {
+            if (this.transformerFactory == null) {
+                throw new IllegalStateException("getTransformer called before transformer factory offered to bake service");
+            }
+            this.transformer = this.transformerFactory.createTransformer();
+        }
+        return this.transformer;
+    }
+    
+    @Override
+    public void offer(IMixinInternal internal) {
+        if (internal instanceof IMixinTransformerFactory) {
+            this.transformerFactory = (IMixinTransformerFactory)internal;
+        }
+        super.offer(internal);
+    }
+    
+    // TEMP
+    @SuppressWarnings("deprecation")
+    @Override
+    public void wire(Phase phase, IConsumer<Phase> phaseConsumer) {
+        super.wire(phase, phaseConsumer);
+        this.phaseConsumer = phaseConsumer;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getName()
+     */
+    @Override
+    public String getName() {
+        return "Bake";
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#isValid()
+     */
+    @Override
+    public boolean isValid() {
+        return MixinServiceBake.isActive();
+    }
+    
+    @Override
+    protected ILogger createLogger(String name) {
+        return new LoggerAdapterConsole(name);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getClassProvider()
+     */
+    @Override
+    public IClassProvider getClassProvider() {
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getBytecodeProvider()
+     */
+    @Override
+    public IClassBytecodeProvider getBytecodeProvider() {
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService
+     *      #getTransformerProvider()
+     */
+    @Override
+    public ITransformerProvider getTransformerProvider() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getClassTracker()
+     */
+    @Override
+    public IClassTracker getClassTracker() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getAuditTrail()
+     */
+    @Override
+    public IMixinAuditTrail getAuditTrail() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getPlatformAgents()
+     */
+    @Override
+    public Collection<String> getPlatformAgents() {
+        return ImmutableList.<String>of();
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getPrimaryContainer()
+     */
+    @Override
+    public IContainerHandle getPrimaryContainer() {
+        try {
+            URI uri = this.getClass().getProtectionDomain().getCodeSource().getLocation().toURI();
+            if (uri != null) {
+                return new ContainerHandleURI(uri);
+            }
+        } catch (URISyntaxException ex) {
+            ex.printStackTrace();
+        }
+        return new ContainerHandleVirtual(this.getName());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService
+     *      #getResourceAsStream(java.lang.String)
+     */
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        return this.getClassLoader().getResourceAsStream(name);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#getClassPath()
+     */
+    @Override
+    @Deprecated
+    public URL[] getClassPath() {
+        return this.sources.toArray(new URL[0]);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findClass(
+     *      java.lang.String)
+     */
+    @Override
+    public Class<?> findClass(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, this.getClassLoader());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findClass(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public Class<?> findClass(String name, boolean initialize) throws ClassNotFoundException {
+        return Class.forName(name, initialize, this.getClassLoader());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findAgentClass(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public Class<?> findAgentClass(String name, boolean initialize) throws ClassNotFoundException {
+        return Class.forName(name, initialize, MixinServiceBake.class.getClassLoader());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String)
+     */
+    @Override
+    public ClassNode getClassNode(String name) throws ClassNotFoundException, IOException {
+        return this.getClassNode(name, true, 0);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public ClassNode getClassNode(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
+        return this.getClassNode(name, runTransformers, 0);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String, boolean, int)
+     */
+    @Override
+    public ClassNode getClassNode(String name, boolean runTransformers, int readerFlags) throws ClassNotFoundException, IOException {
+        // There are no other transformers in a bake environment
+        byte[] classBytes = this.getClassBytes(name);
+        ClassNode classNode = new ClassNode(ASM.API_VERSION);
+        ClassReader classReader = new MixinClassReader(classBytes, name);
+        classReader.accept(classNode, readerFlags);
+        return classNode;
+    }
+
+    /**
+     * Read the raw bytecode of the specified class from the bake class path
+     * 
+     * @param name class name (binary or internal)
+     * @return class bytes
+     * @throws ClassNotFoundException if the class is not on the class path
+     * @throws IOException if the class could not be read
+     */
+    public byte[] getClassBytes(String name) throws ClassNotFoundException, IOException {
+        String resourcePath = name.replace('.', '/') + ".class";
+        InputStream classStream = this.getClassLoader().getResourceAsStream(resourcePath);
+        if (classStream == null) {
+            throw new ClassNotFoundException(String.format("The specified class '%s' was not found", name));
+        }
+        try {
+            return ByteStreams.toByteArray(classStream);
+        } finally {
+            Closeables.closeQuietly(classStream);
+        }
+    }
+
+}
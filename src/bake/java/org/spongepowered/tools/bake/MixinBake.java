@@ -0,0 +1,376 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.tools.bake;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
+import org.spongepowered.asm.mixin.MixinEnvironment.Side;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfigSource;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.Config;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.meta.MixinBaked;
+import org.spongepowered.asm.service.IEnumerableSyntheticClassRegistry;
+import org.spongepowered.asm.service.ISyntheticClassInfo;
+import org.spongepowered.asm.service.ISyntheticClassRegistry;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.service.bake.MixinServiceBake;
+import org.spongepowered.asm.transformers.MixinClassReader;
+import org.spongepowered.asm.transformers.MixinClassWriter;
+import org.spongepowered.asm.util.Annotations;
+import org.spongepowered.asm.util.asm.ASM;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Offline mixin baker. Loads the specified mixin configs in a headless
+ * {@link MixinServiceBake bake service}, applies all mixins to the classes in
+ * the supplied input jars and writes a single pre-mixed output jar along with a
+ * manifest describing which mixins were applied to which classes.
+ * 
+ * <p>Classes written by the baker are decorated with {@link MixinBaked} so
+ * that the mixin processor passes them through at runtime instead of applying
+ * the same mixins a second time.</p>
+ * 
+ * <p>Usage:</p>
+ * 
+ * <pre>java -cp mixin.jar:&lt;deps&gt; org.spongepowered.tools.bake.MixinBake
+ *     --config &lt;config.json&gt; [--config ...]
+ *     --in &lt;input.jar&gt; [--in ...] [--lib &lt;library.jar&gt; ...]
+ *     --out &lt;output.jar&gt; [--side CLIENT|SERVER] [--manifest &lt;file&gt;]</pre>
+ */
+public final class MixinBake {
+    
+    /**
+     * Path of the manifest written into the output jar
+     */
+    public static final String MANIFEST_RESOURCE = "META-INF/mixin.baked.json";
+    
+    /**
+     * Manifest of a bake run, serialised to JSON
+     */
+    static class Manifest {
+        
+        /**
+         * Configs which were loaded
+         */
+        final List<String> configs = new ArrayList<String>();
+        
+        /**
+         * Baked classes mapped to the mixins applied to them
+         */
+        final Map<String, List<String>> classes = new TreeMap<String, List<String>>();
+        
+        /**
+         * Synthetic classes generated during baking
+         */
+        final List<String> synthetic = new ArrayList<String>();
+        
+    }
+    
+    private final List<String> configs = new ArrayList<String>();
+    
+    private final List<File> inputs = new ArrayList<File>();
+    
+    private final List<File> libraries = new ArrayList<File>();
+    
+    private final Set<String> mixinPackages = new HashSet<String>();
+    
+    private final Set<String> written = new HashSet<String>();
+    
+    private final Manifest manifest = new Manifest();
+
+    private File output;
+    
+    private File manifestFile;
+    
+    private Side side = Side.UNKNOWN;
+    
+    private ILogger logger;
+    
+    private MixinServiceBake service;
+    
+    private IMixinTransformer transformer;
+    
+    private MixinEnvironment environment;
+    
+    private MixinBake(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for argument " + arg);
+            }
+            String value = args[++i];
+            if ("--config".equals(arg)) {
+                this.configs.add(value);
+            } else if ("--in".equals(arg)) {
+                this.inputs.add(new File(value));
+            } else if ("--lib".equals(arg)) {
+                for (String lib : value.split(File.pathSeparator)) {
+                    this.libraries.add(new File(lib));
+                }
+            } else if ("--out".equals(arg)) {
+                this.output = new File(value);
+            } else if ("--manifest".equals(arg)) {
+                this.manifestFile = new File(value);
+            } else if ("--side".equals(arg)) {
+                this.side = Side.valueOf(value.toUpperCase(Locale.ROOT));
+            } else {
+                throw new IllegalArgumentException("Unrecognised argument " + arg);
+            }
+        }
+        
+        if (this.configs.isEmpty() || this.inputs.isEmpty() || this.output == null) {
+            throw new IllegalArgumentException("At least one --config, at least one --in, and --out must be specified");
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    public static void main(String[] args) throws Exception {
+        MixinBake bake;
+        try {
+            bake = new MixinBake(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Usage: MixinBake --config <config.json> --in <input.jar> [--lib <library.jar>] --out <output.jar>"
+                    + " [--side CLIENT|SERVER] [--manifest <file>]");
+            System.exit(1);
+            return;
+        }
+        bake.run();
+    }
+    // CHECKSTYLE:ON
+    
+    private void run() throws IOException {
+        this.init();
+        
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(this.output));
+        try {
+            for (File input : this.inputs) {
+                this.bake(input, jar);
+            }
+            this.generateSyntheticClasses(jar);
+            
+            jar.putNextEntry(new JarEntry(MixinBake.MANIFEST_RESOURCE));
+            this.writeManifest(jar);
+            jar.closeEntry();
+        } finally {
+            Closeables.close(jar, true);
+        }
+        
+        if (this.manifestFile != null) {
+            OutputStream out = new FileOutputStream(this.manifestFile);
+            try {
+                this.writeManifest(out);
+            } finally {
+                Closeables.close(out, true);
+            }
+        }
+        
+        this.logger.info("Baked {} classes and {} synthetic classes into {}", this.manifest.classes.size(), this.manifest.synthetic.size(),
+                this.output);
+    }
+
+    private void init() throws MalformedURLException {
+        System.setProperty(MixinServiceBake.ACTIVE_PROPERTY, "true");
+        
+        this.service = (MixinServiceBake)MixinService.getService();
+        this.logger = this.service.getLogger("mixin.bake");
+        for (File input : this.inputs) {
+            this.service.addSource(input.toURI().toURL());
+        }
+        for (File library : this.libraries) {
+            this.service.addSource(library.toURI().toURL());
+        }
+        
+        MixinBootstrap.init();
+        
+        for (Phase phase : new Phase[] { Phase.PREINIT, Phase.INIT, Phase.DEFAULT }) {
+            MixinEnvironment.getEnvironment(phase).setSide(this.side);
+        }
+        
+        for (String config : this.configs) {
+            Mixins.addConfiguration(config, (IMixinConfigSource)null);
+        }
+        
+        // Collect mixin packages before the configs are consumed by selection
+        for (Config config : Mixins.getConfigs()) {
+            IMixinConfig mixinConfig = config.getConfig();
+            this.manifest.configs.add(config.getName());
+            String mixinPackage = mixinConfig.getMixinPackage();
+            if (mixinPackage != null && mixinPackage.length() > 0) {
+                this.mixinPackages.add(mixinPackage.endsWith(".") ? mixinPackage : mixinPackage + ".");
+            }
+        }
+        
+        this.service.onStartup();
+        this.environment = MixinEnvironment.getCurrentEnvironment();
+        this.transformer = this.service.getTransformer();
+    }
+
+    private void bake(File input, JarOutputStream jar) throws IOException {
+        this.logger.info("Baking {}", input);
+        JarFile jarFile = new JarFile(input);
+        try {
+            for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || MixinBake.isSignature(name) || MixinBake.MANIFEST_RESOURCE.equals(name) || !this.written.add(name)) {
+                    continue;
+                }
+                
+                InputStream in = jarFile.getInputStream(entry);
+                byte[] bytes;
+                try {
+                    bytes = ByteStreams.toByteArray(in);
+                } finally {
+                    Closeables.closeQuietly(in);
+                }
+                
+                if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                    bytes = this.bakeClass(name.substring(0, name.length() - 6).replace('/', '.'), bytes);
+                }
+                
+                jar.putNextEntry(new JarEntry(name));
+                jar.write(bytes);
+                jar.closeEntry();
+            }
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    private byte[] bakeClass(String className, byte[] classBytes) {
+        if (this.isMixinClass(className)) {
+            return classBytes;
+        }
+        
+        ClassNode classNode = new ClassNode(ASM.API_VERSION);
+        ClassReader classReader = new MixinClassReader(classBytes, className);
+        classReader.accept(classNode, ClassReader.EXPAND_FRAMES);
+        
+        if (!this.transformer.transformClass(this.environment, className, classNode)) {
+            return classBytes;
+        }
+        
+        List<String> mixins = new ArrayList<String>();
+        for (IMixinInfo mixin : Mixins.getMixinsForClass(className)) {
+            mixins.add(mixin.getClassName());
+        }
+        
+        if (mixins.isEmpty()) {
+            // Transformed by a coprocessor only, nothing to skip at runtime
+            return MixinBake.writeClass(classNode);
+        }
+        
+        Annotations.setInvisible(classNode, MixinBaked.class, "mixins", mixins);
+        this.manifest.classes.put(className, mixins);
+        return MixinBake.writeClass(classNode);
+    }
+
+    private void generateSyntheticClasses(JarOutputStream jar) throws IOException {
+        ISyntheticClassRegistry registry = this.transformer.getExtensions().getSyntheticClassRegistry();
+        if (!(registry instanceof IEnumerableSyntheticClassRegistry)) {
+            this.logger.warn("Synthetic class registry {} cannot list its classes, synthetic classes will not be baked", registry);
+            return;
+        }
+        for (ISyntheticClassInfo synthetic : ((IEnumerableSyntheticClassRegistry)registry).getSyntheticClasses()) {
+            String entryName = synthetic.getName() + ".class";
+            if (!this.written.add(entryName)) {
+                continue;
+            }
+            byte[] bytes = this.transformer.generateClass(this.environment, synthetic.getClassName());
+            if (bytes == null) {
+                this.logger.warn("Synthetic class {} from {} could not be generated", synthetic.getClassName(), synthetic.getMixin());
+                continue;
+            }
+            jar.putNextEntry(new JarEntry(entryName));
+            jar.write(bytes);
+            jar.closeEntry();
+            this.manifest.synthetic.add(synthetic.getClassName());
+        }
+    }
+
+    private void writeManifest(OutputStream out) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Writer writer = new OutputStreamWriter(out, Charsets.UTF_8);
+        gson.toJson(this.manifest, writer);
+        writer.flush();
+    }
+
+    private boolean isMixinClass(String className) {
+        for (String mixinPackage : this.mixinPackages) {
+            if (className.startsWith(mixinPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isSignature(String name) {
+        if (!name.startsWith("META-INF/")) {
+            return false;
+        }
+        return name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC");
+    }
+
+    private static byte[] writeClass(ClassNode classNode) {
+        ClassWriter writer = new MixinClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        classNode.accept(writer);
+        return writer.toByteArray();
+    }
+
+}
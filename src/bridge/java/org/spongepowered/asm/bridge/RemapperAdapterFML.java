@@ -24,6 +24,9 @@
  */
 package org.spongepowered.asm.bridge;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
@@ -40,19 +43,22 @@ public final class RemapperAdapterFML extends RemapperAdapter {
     private static final String INSTANCE_FIELD = "INSTANCE";
     private static final String UNMAP_METHOD = "unmap";
     
-    private final Method mdUnmap;
+    /**
+     * Handle to the remapper's unmap method, bound to the remapper instance
+     */
+    private final MethodHandle mhUnmap;
     
-    private RemapperAdapterFML(org.objectweb.asm.commons.Remapper remapper, Method mdUnmap) {
+    private RemapperAdapterFML(org.objectweb.asm.commons.Remapper remapper, MethodHandle mhUnmap) {
         super(remapper);
         this.logger.info("Initialised Mixin FML Remapper Adapter with {}", remapper);
-        this.mdUnmap = mdUnmap;
+        this.mhUnmap = mhUnmap;
     }
 
     @Override
     public String unmap(String typeName) {
         try {
-            return this.mdUnmap.invoke(this.remapper, typeName).toString();
-        } catch (Exception ex) {
+            return this.mhUnmap.invokeExact(typeName).toString();
+        } catch (Throwable th) {
             return typeName;
         }
     }
@@ -66,7 +72,9 @@ public final class RemapperAdapterFML extends RemapperAdapter {
             Field singletonField = clDeobfRemapper.getDeclaredField(RemapperAdapterFML.INSTANCE_FIELD);
             Method mdUnmap = clDeobfRemapper.getDeclaredMethod(RemapperAdapterFML.UNMAP_METHOD, String.class);
             org.objectweb.asm.commons.Remapper remapper = (org.objectweb.asm.commons.Remapper)singletonField.get(null);
-            return new RemapperAdapterFML(remapper, mdUnmap);
+            MethodHandle mhUnmap = MethodHandles.lookup().unreflect(mdUnmap).bindTo(remapper)
+                    .asType(MethodType.methodType(Object.class, String.class));
+            return new RemapperAdapterFML(remapper, mhUnmap);
         } catch (Exception ex) {
             ex.printStackTrace();
             return null;
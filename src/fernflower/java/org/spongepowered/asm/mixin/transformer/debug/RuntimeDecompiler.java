@@ -28,6 +28,9 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.jar.Manifest;
 
@@ -91,33 +94,58 @@ public class RuntimeDecompiler extends IFernflowerLogger implements IDecompiler,
 
     @Override
     public void decompile(final File file) {
+        this.decompile(Collections.<File>singletonList(file));
+    }
+    
+    /**
+     * Decompile a batch of class files using a single decompiler context
+     * 
+     * @param files Class files to decompile
+     * @return true if the batch was decompiled successfully
+     */
+    protected boolean decompile(List<File> files) {
         try {
             Fernflower fernflower = new Fernflower(new IBytecodeProvider() {
                 
-                private byte[] byteCode;
+                private final Map<String, byte[]> byteCode = new HashMap<String, byte[]>();
                 
                 @Override
                 public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
-                    if (this.byteCode == null) {
-                        this.byteCode = InterpreterUtil.getBytes(new File(externalPath));
+                    byte[] bytes = this.byteCode.get(externalPath);
+                    if (bytes == null) {
+                        bytes = InterpreterUtil.getBytes(new File(externalPath));
+                        this.byteCode.put(externalPath, bytes);
                     }
-                    return this.byteCode;
+                    return bytes;
                 }
                 
             }, this, this.options, this);
             
+            Method mdAddSource = null;
             try {
                 // New fernflower (including forgeflower)
-                Method mdAddSource = fernflower.getClass().getDeclaredMethod("addSource", File.class);
-                mdAddSource.invoke(fernflower, file);
+                mdAddSource = fernflower.getClass().getDeclaredMethod("addSource", File.class);
             } catch (ReflectiveOperationException ex) {
                 // Old fernflower
-                fernflower.getStructContext().addSpace(file, true);
+            }
+            
+            for (File file : files) {
+                if (mdAddSource != null) {
+                    mdAddSource.invoke(fernflower, file);
+                } else {
+                    fernflower.getStructContext().addSpace(file, true);
+                }
             }
             
             fernflower.decompileContext();
+            return true;
         } catch (Throwable ex) {
-            this.logger.warn("Decompilation error while processing {}", file.getName());
+            if (files.size() == 1) {
+                this.logger.warn("Decompilation error while processing {}", files.get(0).getName());
+            } else {
+                this.logger.warn("Decompilation error while processing a batch of {} classes", files.size());
+            }
+            return false;
         }
     }
 
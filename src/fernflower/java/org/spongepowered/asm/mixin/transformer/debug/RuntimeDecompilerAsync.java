@@ -26,33 +26,163 @@ package org.spongepowered.asm.mixin.transformer.debug;
 
 import java.io.File;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 
 /**
- * Asynchronous decompiler, runs mixin export task in a separate thread to avoid
- * slowing down loading time
+ * Asynchronous decompiler, runs mixin export tasks on a pool of worker threads
+ * to avoid slowing down loading time. Each worker takes the next exported
+ * class from the queue along with any further small classes which are
+ * waiting, and decompiles them in a single decompiler context.
  */
 public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnable, UncaughtExceptionHandler {
     
+    /**
+     * Maximum number of classes to decompile in a single context
+     */
+    private static final int BATCH_MAX_CLASSES = 32;
+    
+    /**
+     * Classes are added to a batch until the batch reaches this size in bytes,
+     * large classes are therefore decompiled on their own
+     */
+    private static final long BATCH_MAX_BYTES = 32 * 1024;
+    
+    /**
+     * Number of decompiled classes between progress messages
+     */
+    private static final int PROGRESS_INTERVAL = 500;
+    
+    /**
+     * Default time to wait for the queue to drain at shutdown, in seconds
+     */
+    private static final int DEFAULT_FLUSH_TIMEOUT_SECONDS = 5;
+    
     private final BlockingQueue<File> queue = new LinkedBlockingQueue<File>();
     
-    private final Thread thread;
+    private final Thread[] threads;
+    
+    /**
+     * Number of live worker threads
+     */
+    private final AtomicInteger live = new AtomicInteger();
+    
+    /**
+     * Number of workers currently decompiling a batch
+     */
+    private final AtomicInteger active = new AtomicInteger();
     
-    private boolean run = true;
+    /**
+     * Number of classes submitted for decompilation
+     */
+    private final AtomicInteger submitted = new AtomicInteger();
+    
+    /**
+     * Number of classes processed, whether successfully or not
+     */
+    private final AtomicInteger processed = new AtomicInteger();
+    
+    /**
+     * Number of classes which could not be decompiled
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+    
+    private volatile boolean run = true;
 
     public RuntimeDecompilerAsync(File outputPath) {
         super(outputPath);
-        this.thread = new Thread(this, "Decompiler thread");
-        this.thread.setDaemon(true);
-        this.thread.setPriority(Thread.MIN_PRIORITY);
-        this.thread.setUncaughtExceptionHandler(this);
-        this.thread.start();
+        this.threads = new Thread[RuntimeDecompilerAsync.getThreadCount()];
+        for (int index = 0; index < this.threads.length; index++) {
+            Thread thread = new Thread(this, "Decompiler thread #" + (index + 1));
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setUncaughtExceptionHandler(this);
+            this.threads[index] = thread;
+        }
+        
+        this.live.set(this.threads.length);
+        for (Thread thread : this.threads) {
+            thread.start();
+        }
+        
+        final long flushTimeoutMillis = RuntimeDecompilerAsync.getFlushTimeoutSeconds() * 1000L;
+        Runtime.getRuntime().addShutdownHook(new Thread("Decompiler flush") {
+            @Override
+            public void run() {
+                RuntimeDecompilerAsync.this.awaitQueue(flushTimeoutMillis);
+            }
+        });
+    }
+    
+    private static int getFlushTimeoutSeconds() {
+        try {
+            int timeout = Integer.parseInt(MixinEnvironment.getCurrentEnvironment().getOptionValue(Option.DEBUG_EXPORT_DECOMPILE_FLUSH_TIMEOUT));
+            if (timeout >= 0) {
+                return timeout;
+            }
+        } catch (NumberFormatException ex) {
+            // use default
+        }
+        return RuntimeDecompilerAsync.DEFAULT_FLUSH_TIMEOUT_SECONDS;
+    }
+    
+    private static int getThreadCount() {
+        try {
+            int threads = Integer.parseInt(MixinEnvironment.getCurrentEnvironment().getOptionValue(Option.DEBUG_EXPORT_DECOMPILE_THREADS));
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException ex) {
+            // use default
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s (%d threads)", super.toString(), this.threads.length);
+    }
+
+    /**
+     * Get the number of classes waiting to be decompiled
+     */
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+    
+    /**
+     * Get the number of classes submitted for decompilation
+     */
+    public int getSubmittedCount() {
+        return this.submitted.get();
+    }
+    
+    /**
+     * Get the number of classes which have been processed, including those
+     * which failed to decompile
+     */
+    public int getProcessedCount() {
+        return this.processed.get();
+    }
+    
+    /**
+     * Get the number of classes which could not be decompiled
+     */
+    public int getFailedCount() {
+        return this.failed.get();
     }
 
     @Override
     public void decompile(File file) {
         if (this.run) {
+            this.submitted.incrementAndGet();
             this.queue.offer(file);
         } else {
             super.decompile(file);
@@ -64,7 +194,12 @@ public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnabl
         while (this.run) {
             try {
                 File file = this.queue.take();
-                super.decompile(file);
+                this.active.incrementAndGet();
+                try {
+                    this.decompileBatch(this.drainBatch(file));
+                } finally {
+                    this.active.decrementAndGet();
+                }
             } catch (InterruptedException ex) {
                 this.run = false;
             } catch (Exception ex) {
@@ -72,9 +207,85 @@ public class RuntimeDecompilerAsync extends RuntimeDecompiler implements Runnabl
             }
         }
     }
+    
+    /**
+     * Collect further small classes waiting in the queue into a batch with
+     * the supplied class
+     */
+    private List<File> drainBatch(File file) {
+        List<File> batch = new ArrayList<File>();
+        batch.add(file);
+        long size = file.length();
+        while (size < RuntimeDecompilerAsync.BATCH_MAX_BYTES && batch.size() < RuntimeDecompilerAsync.BATCH_MAX_CLASSES) {
+            File next = this.queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            size += next.length();
+        }
+        return batch;
+    }
+    
+    private void decompileBatch(List<File> batch) {
+        int failures = 0;
+        if (!this.decompile(batch)) {
+            if (batch.size() == 1) {
+                failures = 1;
+            } else {
+                // Retry individually so that one bad class doesn't spoil the
+                // whole batch
+                for (File file : batch) {
+                    if (!this.decompile(Collections.<File>singletonList(file))) {
+                        failures++;
+                    }
+                }
+            }
+        }
+        this.onProcessed(batch.size(), failures);
+    }
+    
+    private void onProcessed(int count, int failures) {
+        if (failures > 0) {
+            this.failed.addAndGet(failures);
+        }
+        int total = this.processed.addAndGet(count);
+        if (total / RuntimeDecompilerAsync.PROGRESS_INTERVAL != (total - count) / RuntimeDecompilerAsync.PROGRESS_INTERVAL) {
+            this.logger.info("Processed {} of {} exported classes ({} failed), {} queued", total, this.submitted.get(), this.failed.get(),
+                    this.queue.size());
+        }
+    }
+    
+    /**
+     * Wait for queued classes to be decompiled, up to the specified timeout
+     * 
+     * @param timeoutMillis time to wait in milliseconds
+     */
+    void awaitQueue(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (this.run && this.live.get() > 0 && (!this.queue.isEmpty() || this.active.get() > 0)) {
+            if (System.currentTimeMillis() >= deadline) {
+                int abandoned = this.queue.size();
+                this.logger.warn("Abandoning decompilation at shutdown after {}ms, {} of {} exported classes were decompiled ({} failed). {} "
+                        + "queued classes and {} batches in progress were abandoned", timeoutMillis, this.processed.get(), this.submitted.get(),
+                        this.failed.get(), abandoned, this.active.get());
+                return;
+            }
+            try {
+                Thread.sleep(100L);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
 
     @Override
     public void uncaughtException(Thread thread, Throwable ex) {
+        if (this.live.decrementAndGet() > 0) {
+            this.logger.error("Async decompiler thread {} encountered an error and will terminate. {} {}", thread.getName(),
+                    ex.getClass().getName(), ex.getMessage());
+            return;
+        }
         this.logger.error("Async decompiler encountered an error and will terminate. Further decompile requests will be handled synchronously. {} {}",
                 ex.getClass().getName(), ex.getMessage());
         this.flush();
@@ -240,13 +240,23 @@ public class MixinServiceLaunchWrapper extends MixinServiceAbstract implements I
         // We know this is deprecated, it works for LW though, so access directly
         URL[] sources = this.getClassPath();
         if (sources != null) {
+            List<URI> uris = new ArrayList<URI>();
             for (URL url : sources) {
                 try {
                     URI uri = url.toURI();
                     MixinServiceLaunchWrapper.logger.debug("Scanning {} for mixin tweaker", uri);
-                    if (!"file".equals(uri.getScheme()) || !Files.toFile(uri).exists()) {
-                        continue;
+                    if ("file".equals(uri.getScheme()) && Files.toFile(uri).exists()) {
+                        uris.add(uri);
                     }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                } 
+            }
+            
+            // Read manifests concurrently, then check them in classpath order
+            MainAttributes.preload(uris);
+            for (URI uri : uris) {
+                try {
                     MainAttributes attributes = MainAttributes.of(uri);
                     String tweaker = attributes.get(Constants.ManifestAttributes.TWEAKER);
                     if (MixinServiceLaunchWrapper.MIXIN_TWEAKER_CLASS.equals(tweaker)) {
@@ -33,38 +33,68 @@ import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.spongepowered.asm.util.Files;
 import org.spongepowered.asm.util.JavaVersion;
+import org.spongepowered.asm.util.Parallel;
 
 import com.google.common.io.ByteSource;
 
 /**
  * "Main" attribute cache for a URI container, mainly to avoid constantly
- * opening jar files just to read odd values out of the manifest.
+ * opening jar files just to read odd values out of the manifest. Cached
+ * attributes for a file are discarded if the file is modified.
  */
 public final class MainAttributes {
     
-    private static final Map<URI, MainAttributes> instances = new HashMap<URI, MainAttributes>();
+    private static final Map<URI, MainAttributes> instances = new ConcurrentHashMap<URI, MainAttributes>();
     
     /**
      * Manifest from jar
      */
     protected final Attributes attributes;
     
+    /**
+     * Container file, null if the container is not a file
+     */
+    private final File file;
+    
+    /**
+     * Modification time of the container file when the attributes were read
+     */
+    private final long lastModified;
+    
     private MainAttributes() {
         this.attributes = new Attributes();
+        this.file = null;
+        this.lastModified = 0L;
     }
 
     private MainAttributes(URI codeSource) {
+        this.file = codeSource != null && "file".equals(codeSource.getScheme()) ? Files.toFile(codeSource) : null;
+        this.lastModified = this.file != null ? this.file.lastModified() : 0L;
         this.attributes = MainAttributes.getAttributes(codeSource);
     }
+    
+    /**
+     * Get whether the container has not been modified since the attributes
+     * were read
+     */
+    private boolean isCurrent() {
+        return this.file == null || this.file.lastModified() == this.lastModified;
+    }
 
     /**
      * Retrieve the value of attribute with the specified name, or null if not
@@ -125,19 +155,26 @@ public final class MainAttributes {
     }
 
     private static Attributes getJarAttributes(File jar) {
-        JarFile jarFile = null;
+        // Look up the manifest entry in the central directory directly rather
+        // than via JarFile, which also processes signatures
+        ZipFile zipFile = null;
+        InputStream inputStream = null;
         try {
-            jarFile = new JarFile(jar);
-            Manifest manifest = jarFile.getManifest();
-            if (manifest != null) {
-                return manifest.getMainAttributes();
+            zipFile = new ZipFile(jar);
+            ZipEntry manifestEntry = zipFile.getEntry(JarFile.MANIFEST_NAME);
+            if (manifestEntry != null) {
+                inputStream = zipFile.getInputStream(manifestEntry);
+                return new Manifest(inputStream).getMainAttributes();
             }
         } catch (IOException ex) {
             // be quiet checkstyle
         } finally {
             try {
-                if (jarFile != null) {
-                    jarFile.close();
+                if (inputStream != null) {
+                    inputStream.close();
+                }
+                if (zipFile != null) {
+                    zipFile.close();
                 }
             } catch (IOException e) {
                 // ignore
@@ -218,10 +255,35 @@ public final class MainAttributes {
      */
     public static MainAttributes of(URI uri) {
         MainAttributes attributes = MainAttributes.instances.get(uri);
-        if (attributes == null) {
+        if (attributes == null || !attributes.isCurrent()) {
             attributes = new MainAttributes(uri);
             MainAttributes.instances.put(uri, attributes);
         }
         return attributes;
     }
+
+    /**
+     * Read the attributes for the supplied containers concurrently, so that
+     * subsequent calls to {@link #of(URI)} for the containers are served from
+     * the cache. Attributes which are already cached and current are not read
+     * again.
+     * 
+     * @param uris container locations
+     */
+    public static void preload(Collection<URI> uris) {
+        List<Callable<MainAttributes>> tasks = new ArrayList<Callable<MainAttributes>>();
+        for (final URI uri : uris) {
+            MainAttributes attributes = MainAttributes.instances.get(uri);
+            if (attributes == null || !attributes.isCurrent()) {
+                tasks.add(new Callable<MainAttributes>() {
+                    @Override
+                    public MainAttributes call() throws Exception {
+                        return MainAttributes.of(uri);
+                    }
+                });
+            }
+        }
+        
+        Parallel.invokeAll("Mixin Manifest Reader", tasks);
+    }
 }
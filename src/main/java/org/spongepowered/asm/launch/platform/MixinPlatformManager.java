@@ -24,14 +24,19 @@
  */
 package org.spongepowered.asm.launch.platform;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
+import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
 import org.spongepowered.asm.launch.platform.container.IContainerHandle;
 import org.spongepowered.asm.logging.ILogger;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -40,8 +45,10 @@ import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
 import org.spongepowered.asm.mixin.Mixins;
 import org.spongepowered.asm.mixin.extensibility.IMixinConfigSource;
 import org.spongepowered.asm.mixin.throwables.MixinError;
+import org.spongepowered.asm.mixin.transformer.Config;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.service.ServiceVersionError;
+import org.spongepowered.asm.util.Constants.ManifestAttributes;
 
 //import com.google.common.collect.ImmutableList;
 
@@ -162,6 +169,7 @@ public class MixinPlatformManager {
      */
     public final void prepare(CommandLineOptions args) {
         this.prepared = true;
+        this.preloadConfigs(args);
         for (MixinContainer container : this.containers.values()) {
             container.prepare();
         }
@@ -169,6 +177,31 @@ public class MixinPlatformManager {
         for (String config : args.getConfigs()) {
             this.addConfig(config, null);
         }
+        Config.clearPreloaded();
+    }
+
+    /**
+     * Read the configs declared by all containers and on the command line
+     * concurrently, agents then add them in order during prepare
+     */
+    private void preloadConfigs(CommandLineOptions args) {
+        Set<String> configs = new LinkedHashSet<String>();
+        for (IContainerHandle handle : this.containers.keySet()) {
+            String mixinConfigs = handle.getAttribute(ManifestAttributes.MIXINCONFIGS);
+            if (mixinConfigs != null) {
+                for (String config : mixinConfigs.split(",")) {
+                    configs.add(config.trim());
+                }
+            }
+        }
+        configs.addAll(args.getConfigs());
+        
+        for (Iterator<String> iter = configs.iterator(); iter.hasNext();) {
+            if (!iter.next().endsWith(".json")) {
+                iter.remove();
+            }
+        }
+        Config.preload(configs);
     }
 
     /**
@@ -210,6 +243,14 @@ public class MixinPlatformManager {
         }
         
         List<IContainerHandle> existingContainers = new ArrayList<IContainerHandle>(this.containers.keySet());
+        
+        // Read the manifests of new containers concurrently, containers must
+        // still be added in order since agents register configs on accept
+        Set<URI> uris = new LinkedHashSet<URI>();
+        this.collectNewContainerURIs(existingContainers, uris);
+        this.collectNewContainerURIs(mixinContainers, uris);
+        MainAttributes.preload(uris);
+        
         for (IContainerHandle existingContainer : existingContainers) {
             this.addNestedContainers(existingContainer);
         }
@@ -224,6 +265,15 @@ public class MixinPlatformManager {
         }
     }
 
+    private void collectNewContainerURIs(Collection<IContainerHandle> handles, Set<URI> uris) {
+        for (IContainerHandle handle : handles) {
+            if (!this.containers.containsKey(handle) && handle instanceof ContainerHandleURI) {
+                uris.add(((ContainerHandleURI)handle).getURI());
+            }
+            this.collectNewContainerURIs(handle.getNestedContainers(), uris);
+        }
+    }
+
     /**
      * Queries all containers for launch target, returns null if no containers
      * specify a launch target
@@ -44,13 +44,12 @@ public class ContainerHandleURI implements IContainerHandle {
     private final URI uri;
 
     /**
-     * "Main" manifest attributes from the container
+     * "Main" manifest attributes from the container, read on first use
      */
-    private final MainAttributes attributes;
+    private volatile MainAttributes attributes;
 
     public ContainerHandleURI(URI uri) {
         this.uri = uri;
-        this.attributes = MainAttributes.of(uri);
     }
     
     @Override
@@ -85,6 +84,9 @@ public class ContainerHandleURI implements IContainerHandle {
      */
     @Override
     public String getAttribute(String name) {
+        if (this.attributes == null) {
+            this.attributes = MainAttributes.of(this.uri);
+        }
         return this.attributes.get(name);
     }
     
@@ -229,6 +229,24 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_EXPORT_FILTER(Option.DEBUG_EXPORT, "filter", false),
         
+        /**
+         * Write exported classes using a background thread. Exported classes
+         * are still serialised on the transforming thread, but without frames.
+         * Frames for the exported copy are computed in the background, along
+         * with file output (and decompilation), using only class metadata
+         * which is already cached. Exports which are still queued at shutdown
+         * are flushed before the VM exits.
+         */
+        DEBUG_EXPORT_ASYNC(Option.DEBUG_EXPORT, Inherit.ALLOW_OVERRIDE, "async"),
+        
+        /**
+         * Write exported classes to a single archive <tt>class.jar</tt> in the
+         * .mixin.out directory instead of one file per class. Ignored if the
+         * runtime decompiler is active, since the decompiler consumes the
+         * exported class files.
+         */
+        DEBUG_EXPORT_ARCHIVE(Option.DEBUG_EXPORT, Inherit.INDEPENDENT, "archive"),
+        
         /**
          * Allow fernflower to be disabled even if it is found on the classpath
          */
@@ -242,6 +260,22 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         DEBUG_EXPORT_DECOMPILE_THREADED(Option.DEBUG_EXPORT_DECOMPILE, Inherit.ALLOW_OVERRIDE, "async"),
         
+        /**
+         * Number of worker threads used by the threaded decompiler, each
+         * worker decompiles independent classes (batching small classes
+         * together) concurrently. The default of <tt>0</tt> uses one thread
+         * for every two available processors.
+         */
+        DEBUG_EXPORT_DECOMPILE_THREADS(Option.DEBUG_EXPORT_DECOMPILE_THREADED, Inherit.INDEPENDENT, "threads", false, "0"),
+        
+        /**
+         * Time in seconds for which the threaded decompiler waits at shutdown
+         * for queued classes to be decompiled. Classes which are still queued
+         * when the timeout expires are abandoned and reported. A value of
+         * <tt>0</tt> abandons queued classes immediately.
+         */
+        DEBUG_EXPORT_DECOMPILE_FLUSH_TIMEOUT(Option.DEBUG_EXPORT_DECOMPILE_THREADED, Inherit.INDEPENDENT, "flushTimeout", false, "5"),
+        
         /**
          * By default, if the runtime export decompiler is active, mixin generic
          * signatures are merged into target classes. However this can cause
@@ -292,6 +326,44 @@ public final class MixinEnvironment implements ITokenProvider {
          * is only enabled during mixin prepare operations)
          */
         DEBUG_PROFILER(Option.DEBUG_ALL, Inherit.ALLOW_OVERRIDE, "profiler"),
+        
+        /**
+         * Enable collection of per-mixin and per-injector cost metrics by the
+         * built-in metrics recorder, the collected metrics are written to the
+         * .mixin.out directory as json when the VM exits
+         */
+        DEBUG_METRICS(Option.DEBUG_ALL, Inherit.ALLOW_OVERRIDE, "metrics"),
+
+        /**
+         * Record a timeline of the work done to transform each target class,
+         * including reading and writing the class, metadata loads and the
+         * application of each mixin. The timeline is written to the .mixin.out
+         * directory in the Chrome trace event format
+         */
+        DEBUG_TRACE(Option.DEBUG_ALL, Inherit.ALLOW_OVERRIDE, "trace"),
+        
+        /**
+         * Instrument the invocation of each injected handler with a counter,
+         * the counts are available through JMX and are written to the
+         * .mixin.out directory as json when the VM exits. Unlike other debug
+         * options this changes the generated bytecode, so it is not enabled
+         * by <tt>mixin.debug</tt>
+         */
+        DEBUG_SAMPLE_HANDLERS(Option.DEBUG_ALL, Inherit.INDEPENDENT, "sampleHandlers"),
+        
+        /**
+         * Time one in every N invocations of each instrumented handler, where
+         * N is rounded up to a power of two. The default of <tt>0</tt> only
+         * counts invocations
+         */
+        DEBUG_SAMPLE_HANDLERS_TIMING(Option.DEBUG_SAMPLE_HANDLERS, Inherit.INDEPENDENT, "timing", false, "0"),
+        
+        /**
+         * Interval in seconds at which handler invocation counts are written
+         * to disk in addition to when the VM exits, <tt>0</tt> to only write
+         * the counts on exit
+         */
+        DEBUG_SAMPLE_HANDLERS_DUMP(Option.DEBUG_SAMPLE_HANDLERS, Inherit.INDEPENDENT, "dumpInterval", false, "0"),
 
         /**
          * Dumps the bytecode for the target class to disk when mixin
@@ -318,6 +390,19 @@ public final class MixinEnvironment implements ITokenProvider {
          */
         CHECK_IMPLEMENTS_STRICT(Option.CHECK_IMPLEMENTS, Inherit.ALLOW_OVERRIDE, "strict"),
         
+        /**
+         * Write the interface check reports from a background thread. Reports
+         * are flushed at the end of an audit and at shutdown.
+         */
+        CHECK_IMPLEMENTS_ASYNC(Option.CHECK_IMPLEMENTS, Inherit.INDEPENDENT, "async"),
+        
+        /**
+         * Format of the machine-readable interface check report, either
+         * <tt>csv</tt> (the default) or <tt>jsonl</tt> for one json object per
+         * missing method.
+         */
+        CHECK_IMPLEMENTS_FORMAT(Option.CHECK_IMPLEMENTS, Inherit.INDEPENDENT, "format", false, "csv"),
+        
         /**
          * Ignore all constraints on mixin annotations, output warnings instead
          */
@@ -426,7 +511,87 @@ public final class MixinEnvironment implements ITokenProvider {
          * with {@link ClassReader#EXPAND_FRAMES} flag which restores the
          * behaviour from versions 0.8.6 and below, newer versions default to 0.
          */
-        CLASSREADER_EXPAND_FRAMES(Option.TUNABLE, Inherit.INDEPENDENT, "classReaderExpandFrames", true, "false");
+        CLASSREADER_EXPAND_FRAMES(Option.TUNABLE, Inherit.INDEPENDENT, "classReaderExpandFrames", true, "false"),
+        
+        /**
+         * Tunable for the number of worker threads used when reading class
+         * bytecode passed to {@link IMixinTransformer#transformClasses batch
+         * transformation}. A value of <tt>0</tt> uses one thread per available
+         * processor, <tt>1</tt> disables parallel reading entirely.
+         */
+        BATCH_THREADS(Option.TUNABLE, Inherit.INDEPENDENT, "batchThreads", false, "0"),
+        
+        /**
+         * Tunable for the number of worker threads used to force-load targets
+         * during an {@link MixinEnvironment#audit audit}. The default of
+         * <tt>1</tt> loads and initialises targets sequentially, higher values
+         * load targets concurrently (without initialising them) and <tt>0</tt>
+         * uses one thread per available processor.
+         */
+        AUDIT_THREADS(Option.TUNABLE, Inherit.INDEPENDENT, "auditThreads", false, "1"),
+        
+        /**
+         * Tunable which causes frames to be recomputed only for methods which
+         * were added or modified by mixins when writing transformed classes.
+         * Untouched methods keep the frames they were loaded with, and are
+         * copied verbatim from the original bytecode where it is available,
+         * which can significantly reduce the cost of writing large target
+         * classes which only have a handful of methods touched by mixins.
+         */
+        COMPUTE_MODIFIED_FRAMES(Option.TUNABLE, Inherit.INDEPENDENT, "computeModifiedFramesOnly", true, "false"),
+        
+        /**
+         * Tunable which rewrites calls to instance accessors and invokers in
+         * mixin targets into direct accesses of the accessor target member,
+         * avoiding megamorphic interface calls when an accessor interface is
+         * applied to many classes. Calls are only rewritten once the target
+         * of the accessor has been transformed, and this assumes that accessor
+         * interfaces are only implemented by their mixin targets.
+         */
+        INLINE_ACCESSORS(Option.TUNABLE, Inherit.INDEPENDENT, "inlineAccessors", true, "false"),
+        
+        /**
+         * Tunable for the size in bytes above which injection glue, such as
+         * the construction of <tt>CallbackInfo</tt> instances, is moved out of
+         * target methods into synthetic helper methods once injection is
+         * complete. Targets which remain larger than the 8000 byte limit above
+         * which HotSpot will not compile methods are reported. The default
+         * value of <tt>0</tt> disables the check, to enable it set <tt>
+         * mixin.tunable.hugeMethodThreshold</tt> to the desired size, for
+         * example <tt>8000</tt> to only outline glue from targets which would
+         * otherwise not be compiled.
+         */
+        HUGE_METHOD_THRESHOLD(Option.TUNABLE, Inherit.INDEPENDENT, "hugeMethodThreshold", false, "0"),
+        
+        /**
+         * Tunable which specifies a file in which the class metadata gathered
+         * by mixin is saved when the VM exits. On subsequent launches the
+         * metadata for classes whose classpath entries are unchanged is read
+         * from the snapshot instead of from the class bytes. Empty by default,
+         * which disables the snapshot.
+         */
+        CLASSINFO_SNAPSHOT(Option.TUNABLE, Inherit.INDEPENDENT, "classInfoSnapshot", false, ""),
+        
+        /**
+         * Enables use of the mixin index generated alongside a config's refmap
+         * by the annotation processor when it is run with the <tt>mixinIndex
+         * </tt> option. Mixins listed in the index are prepared without reading
+         * their bytecode, which is instead read and validated when one of
+         * their targets is first loaded. Errors in indexed mixins are thus
+         * reported when their targets load rather than during prepare.
+         * Disabled by default.
+         */
+        ENABLE_MIXIN_INDEX(Option.TUNABLE, Inherit.INDEPENDENT, "enableMixinIndex", true, "false"),
+        
+        /**
+         * Mixins which are not listed in a mixin index are prepared by reading
+         * only their class header and annotations, and the full bytecode is
+         * read and validated when one of their targets is first loaded, as for
+         * indexed mixins. Mixins for targets which are never loaded are thus
+         * never fully read. Errors in deferred mixins are reported when their
+         * targets load rather than during prepare.
+         */
+        LAZY_MIXINS(Option.TUNABLE, Inherit.INDEPENDENT, "lazyMixins", true, "false");
         
         /**
          * Type of inheritance for options
@@ -24,6 +24,7 @@
  */
 package org.spongepowered.asm.mixin;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -84,9 +85,11 @@ public final class Mixins {
      */
     public static void addConfigurations(String[] configFiles, IMixinConfigSource source) {
         MixinEnvironment fallback = MixinEnvironment.getDefaultEnvironment();
+        Config.preload(Arrays.asList(configFiles));
         for (String configFile : configFiles) {
             Mixins.createConfiguration(configFile, fallback, source);
         }
+        Config.clearPreloaded();
     }
     
     /**
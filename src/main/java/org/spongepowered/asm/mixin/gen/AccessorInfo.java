@@ -29,7 +29,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -148,6 +150,14 @@ public class AccessorInfo extends SpecialMethodInfo {
          */
         private static final Pattern PATTERN = Pattern.compile("^(" + AccessorName.getPrefixList() + ")(([A-Z])(.*?))(_\\$md.*)?$");
         
+        /**
+         * Parsed names by method name, the same accessor interfaces are
+         * commonly applied to many targets so names are only parsed once.
+         * Separate caches are kept for member-case and verbatim names.
+         */
+        private static final Map<String, AccessorName> memberCaseNames = new ConcurrentHashMap<String, AccessorName>();
+        private static final Map<String, AccessorName> verbatimNames = new ConcurrentHashMap<String, AccessorName>();
+        
         /**
          * Name of the accessor method 
          */
@@ -199,6 +209,18 @@ public class AccessorInfo extends SpecialMethodInfo {
          *      accessor name
          */
         public static AccessorName of(String methodName, boolean toMemberCase) { 
+            Map<String, AccessorName> cache = toMemberCase ? AccessorName.memberCaseNames : AccessorName.verbatimNames;
+            AccessorName accessorName = cache.get(methodName);
+            if (accessorName == null) {
+                accessorName = AccessorName.parse(methodName, toMemberCase);
+                if (accessorName != null) {
+                    cache.put(methodName, accessorName);
+                }
+            }
+            return accessorName;
+        }
+        
+        private static AccessorName parse(String methodName, boolean toMemberCase) {
             Matcher nameMatcher = AccessorName.PATTERN.matcher(methodName);
             if (nameMatcher.matches()) {
                 String prefix = nameMatcher.group(1);
@@ -472,7 +494,18 @@ public class AccessorInfo extends SpecialMethodInfo {
      * targetted. 
      */
     public void locate() {
-        this.targetField = this.findTargetField();
+        this.locate(new MemberIndex(this.classNode));
+    }
+
+    /**
+     * First pass, locate the target field in the class using the supplied
+     * index of the target class members, which may be shared by all accessors
+     * in the mixin
+     * 
+     * @param members index of target class members
+     */
+    public void locate(MemberIndex members) {
+        this.targetField = this.findTargetField(members);
     }
 
     /**
@@ -497,8 +530,8 @@ public class AccessorInfo extends SpecialMethodInfo {
         return generatedAccessor;
     }
 
-    private FieldNode findTargetField() {
-        return this.<FieldNode>findTarget(ElementNode.fieldList(this.classNode));
+    private FieldNode findTargetField(MemberIndex members) {
+        return this.<FieldNode>findTarget(members.getFields(this.target));
     }
         
     /**
@@ -27,7 +27,6 @@ package org.spongepowered.asm.mixin.gen;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.mixin.gen.throwables.InvalidAccessorException;
-import org.spongepowered.asm.mixin.injection.selectors.ElementNode;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelector;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelector.Configure;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorByName;
@@ -98,13 +97,12 @@ class InvokerInfo extends AccessorInfo {
     }
 
     @Override
-    public void locate() {
-        this.targetMethod = this.findTargetMethod();
+    public void locate(MemberIndex members) {
+        this.targetMethod = this.findTargetMethod(members);
     }
 
-    private MethodNode findTargetMethod() {
-        Result<MethodNode> result = TargetSelector.<MethodNode>run(this.target.configure(Configure.ORPHAN),
-                ElementNode.methodList(this.classNode));
+    private MethodNode findTargetMethod(MemberIndex members) {
+        Result<MethodNode> result = TargetSelector.<MethodNode>run(this.target.configure(Configure.ORPHAN), members.getMethods(this.target));
 
         try {
             return result.getSingleResult(true);
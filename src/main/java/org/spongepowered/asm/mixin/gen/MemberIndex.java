@@ -0,0 +1,159 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.gen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.mixin.injection.selectors.ElementNode;
+import org.spongepowered.asm.mixin.injection.selectors.ITargetSelector;
+import org.spongepowered.asm.mixin.injection.struct.MemberInfo;
+
+/**
+ * Index of the fields and methods in a target class by name, used when
+ * locating the targets of accessors and invokers. Locating a target by
+ * scanning the member lists costs time proportional to the size of the
+ * target class for every accessor, so a mixin with many accessors is instead
+ * served from a single index built the first time it is needed.
+ * 
+ * <p>The index is only valid while the member lists of the target class are
+ * unchanged, which is the case while the accessors of a single mixin are
+ * being located.</p>
+ */
+public final class MemberIndex {
+    
+    /**
+     * Target class
+     */
+    private final ClassNode classNode;
+    
+    /**
+     * Fields by case-folded name, built on demand 
+     */
+    private Map<String, List<ElementNode<FieldNode>>> fields;
+    
+    /**
+     * Methods by case-folded name, built on demand 
+     */
+    private Map<String, List<ElementNode<MethodNode>>> methods;
+    
+    public MemberIndex(ClassNode classNode) {
+        this.classNode = classNode;
+    }
+    
+    /**
+     * Get the fields in the target class which can be matched by the supplied
+     * selector. If the selector matches by name then only the fields with a
+     * matching name are returned, otherwise all fields are returned.
+     * 
+     * @param selector Selector which will be run against the returned fields
+     * @return candidate fields
+     */
+    public List<ElementNode<FieldNode>> getFields(ITargetSelector selector) {
+        String key = MemberIndex.getKey(selector);
+        if (key == null) {
+            return ElementNode.fieldList(this.classNode);
+        }
+        if (this.fields == null) {
+            this.fields = MemberIndex.<FieldNode>index(ElementNode.fieldList(this.classNode));
+        }
+        return MemberIndex.<FieldNode>get(this.fields, key);
+    }
+    
+    /**
+     * Get the methods in the target class which can be matched by the
+     * supplied selector. If the selector matches by name then only the
+     * methods with a matching name are returned, otherwise all methods are
+     * returned.
+     * 
+     * @param selector Selector which will be run against the returned methods
+     * @return candidate methods
+     */
+    public List<ElementNode<MethodNode>> getMethods(ITargetSelector selector) {
+        String key = MemberIndex.getKey(selector);
+        if (key == null) {
+            return ElementNode.methodList(this.classNode);
+        }
+        if (this.methods == null) {
+            this.methods = MemberIndex.<MethodNode>index(ElementNode.methodList(this.classNode));
+        }
+        return MemberIndex.<MethodNode>get(this.methods, key);
+    }
+
+    private static <TNode> Map<String, List<ElementNode<TNode>>> index(List<ElementNode<TNode>> nodes) {
+        Map<String, List<ElementNode<TNode>>> index = new HashMap<String, List<ElementNode<TNode>>>();
+        for (ElementNode<TNode> node : nodes) {
+            String key = MemberIndex.fold(node.getName());
+            List<ElementNode<TNode>> bucket = index.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<ElementNode<TNode>>(1);
+                index.put(key, bucket);
+            }
+            bucket.add(node);
+        }
+        return index;
+    }
+    
+    private static <TNode> List<ElementNode<TNode>> get(Map<String, List<ElementNode<TNode>>> index, String key) {
+        List<ElementNode<TNode>> bucket = index.get(key);
+        return bucket != null ? bucket : Collections.<ElementNode<TNode>>emptyList();
+    }
+
+    /**
+     * Get the index key for the supplied selector, or null if the selector
+     * may match members with any name. Only {@link MemberInfo} is indexed
+     * since its matching rules by name are known.
+     */
+    private static String getKey(ITargetSelector selector) {
+        if (selector instanceof MemberInfo) {
+            String name = ((MemberInfo)selector).getName();
+            return name != null ? MemberIndex.fold(name) : null;
+        }
+        return null;
+    }
+    
+    /**
+     * Fold the case of the supplied name so that names which are equal when
+     * compared with {@link String#equalsIgnoreCase} have the same key, since
+     * MemberInfo accepts inexact matches on the case of the name
+     */
+    private static String fold(String name) {
+        if (name == null) {
+            return "";
+        }
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+}
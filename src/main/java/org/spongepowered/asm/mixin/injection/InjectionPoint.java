@@ -40,6 +40,8 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.AnnotationNode;
@@ -292,6 +294,18 @@ public abstract class InjectionPoint {
      */
     private static Map<String, Class<? extends InjectionPoint>> types = new HashMap<String, Class<? extends InjectionPoint>>();
     
+    /**
+     * Accessible constructors of injection point types, looked up the first
+     * time each type is instanced
+     */
+    private static final Map<Class<? extends InjectionPoint>, Constructor<? extends InjectionPoint>> constructors
+            = new ConcurrentHashMap<Class<? extends InjectionPoint>, Constructor<? extends InjectionPoint>>();
+    
+    /**
+     * Pattern for recognising fully-qualified injection point class names 
+     */
+    private static final Pattern CLASS_NAME_PATTERN = Pattern.compile("^([A-Za-z_][A-Za-z0-9_]*[\\.\\$])+[A-Za-z_][A-Za-z0-9_]*$");
+    
     static {
         // Standard Injection Points
         InjectionPoint.registerBuiltIn(BeforeFieldAccess.class);
@@ -834,7 +848,11 @@ public abstract class InjectionPoint {
         String type = data.getType();
         Class<? extends InjectionPoint> ipClass = InjectionPoint.types.get(type.toUpperCase(Locale.ROOT));
         if (ipClass == null) {
-            if (type.matches("^([A-Za-z_][A-Za-z0-9_]*[\\.\\$])+[A-Za-z_][A-Za-z0-9_]*$")) {
+            // Custom types loaded by class name are stored verbatim
+            ipClass = InjectionPoint.types.get(type);
+        }
+        if (ipClass == null) {
+            if (InjectionPoint.CLASS_NAME_PATTERN.matcher(type).matches()) {
                 try {
                     ipClass = (Class<? extends InjectionPoint>)MixinService.getService().getClassProvider().findClass(type);
                     InjectionPoint.types.put(type, ipClass);
@@ -849,12 +867,16 @@ public abstract class InjectionPoint {
     }
     
     private static InjectionPoint create(IMixinContext context, InjectionPointData data, Class<? extends InjectionPoint> ipClass) {
-        Constructor<? extends InjectionPoint> ipCtor = null;
-        try {
-            ipCtor = ipClass.getDeclaredConstructor(InjectionPointData.class);
-            ipCtor.setAccessible(true);
-        } catch (NoSuchMethodException ex) {
-            throw new InvalidInjectionException(context, ipClass.getName() + " must contain a constructor which accepts an InjectionPointData", ex);
+        Constructor<? extends InjectionPoint> ipCtor = InjectionPoint.constructors.get(ipClass);
+        if (ipCtor == null) {
+            try {
+                ipCtor = ipClass.getDeclaredConstructor(InjectionPointData.class);
+                ipCtor.setAccessible(true);
+            } catch (NoSuchMethodException ex) {
+                throw new InvalidInjectionException(context, ipClass.getName() + " must contain a constructor which accepts an InjectionPointData",
+                        ex);
+            }
+            InjectionPoint.constructors.put(ipClass, ipCtor);
         }
 
         InjectionPoint point = null;
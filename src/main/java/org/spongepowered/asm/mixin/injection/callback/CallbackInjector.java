@@ -46,12 +46,14 @@ import org.spongepowered.asm.mixin.injection.struct.Target;
 import org.spongepowered.asm.mixin.injection.struct.Target.Extension;
 import org.spongepowered.asm.mixin.injection.throwables.InjectionError;
 import org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionException;
+import org.spongepowered.asm.service.IMixinMetrics.Metric;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.Locals;
 import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.SignaturePrinter;
+import org.spongepowered.asm.util.perf.Metrics;
 
 import com.google.common.base.Strings;
 
@@ -198,7 +200,7 @@ public class CallbackInjector extends Injector {
             this.extraArgs = Math.max(0, handlerArgs.length - target.arguments.length - 1);
             this.argNames = argNames != null ? argNames.toArray(new String[argNames.size()]) : null;
             this.canCaptureLocals = captureLocals && locals != null && locals.length > this.frameSize;
-            this.isAtReturn = this.node.getCurrentTarget() instanceof InsnNode && this.isValueReturnOpcode(this.node.getCurrentTarget().getOpcode());
+            this.isAtReturn = CallbackInjector.isAtReturn(node);
             this.desc = target.getCallbackDescriptor(this.localTypes, target.arguments);
             this.descl = target.getCallbackDescriptor(true, this.localTypes, target.arguments, this.frameSize, this.extraArgs);
 //            this.typeCasts = new Type[this.frameSize + this.extraArgs];
@@ -212,17 +214,6 @@ public class CallbackInjector extends Injector {
             }
         }
 
-        /**
-         * Returns true if the supplied opcode represents a <em>non-void</em>
-         * RETURN opcode
-         * 
-         * @param opcode opcode to check
-         * @return true if value return
-         */
-        private boolean isValueReturnOpcode(int opcode) {
-            return opcode >= Opcodes.IRETURN && opcode < Opcodes.RETURN;
-        }
-        
         String getDescriptor() {
             return this.canCaptureLocals ? this.descl : this.desc;
         }
@@ -232,7 +223,7 @@ public class CallbackInjector extends Injector {
         }
 
         String getCallbackInfoConstructorDescriptor() {
-            return this.isAtReturn ? CallbackInfo.getConstructorDescriptor(this.target.returnType) : CallbackInfo.getConstructorDescriptor();
+            return CallbackInjector.getCallbackInfoConstructorDescriptor(this.target, this.isAtReturn);
         }
 
         /**
@@ -332,6 +323,19 @@ public class CallbackInjector extends Injector {
      * Decorator key for local variables decoration
      */
     private static final String LOCALS_KEY = "locals";
+    
+    /**
+     * Decorator key prefix for the number of callbacks at a node which can
+     * share a CallbackInfo, the remainder of the key identifies the type and
+     * contents of the CallbackInfo
+     */
+    private static final String SHARED_CALLBACKS_KEY = "callbackInfo.count:";
+    
+    /**
+     * Decorator key prefix for the local variable holding a CallbackInfo which
+     * can be shared by subsequent callbacks at a node
+     */
+    private static final String SHARED_CALLBACK_INFO_KEY = "callbackInfo.var:";
 
     /**
      * True if cancellable 
@@ -432,7 +436,9 @@ public class CallbackInjector extends Injector {
     @Override
     protected void preInject(Target target, InjectionNode node) {
         if ((this.localCapture.isCaptureLocals() || this.localCapture.isPrintLocals()) && !node.hasDecoration(CallbackInjector.LOCALS_KEY)) {
+            long start = Metrics.start();
             LocalVariableNode[] locals = Locals.getLocalsAt(this.classNode, target.method, node.getCurrentTarget());
+            this.info.recordTime(Metric.LOCALS_TIME, start, -1L);
             for (int j = 0; j < locals.length; j++) {
                 if (locals[j] != null && locals[j].desc != null && locals[j].desc.startsWith("Lorg/spongepowered/asm/mixin/injection/callback/")) {
                     locals[j] = null;
@@ -440,6 +446,17 @@ public class CallbackInjector extends Injector {
             }
             node.<LocalVariableNode[]>decorate(CallbackInjector.LOCALS_KEY, locals);
         }
+
+        // A CallbackInfoReturnable captures the return value when it is
+        // created, callbacks injected before this one at the same RETURN may
+        // have replaced the value on the stack so the instance is not shared
+        if (CallbackInjector.isAtReturn(node)) {
+            return;
+        }
+
+        String countKey = CallbackInjector.SHARED_CALLBACKS_KEY + this.getSharedCallbackInfoKey(target, node);
+        int count = node.<Integer>getDecoration(countKey, Integer.valueOf(0)).intValue();
+        node.<Integer>decorate(countKey, Integer.valueOf(count + 1));
     }
 
     /* (non-Javadoc)
@@ -526,11 +543,26 @@ public class CallbackInjector extends Injector {
             }
         }
         
-        this.dupReturnValue(callback);
-        if (this.cancellable || this.totalInjections > 1) {
-            this.createCallbackInfo(callback, true);
+        // Callbacks at the same node which would create identical CallbackInfo
+        // instances share the instance created by the first callback
+        String sharedKey = this.getSharedCallbackInfoKey(callback.target, callback.node);
+        Integer sharedVar = callback.node.<Integer>getDecoration(CallbackInjector.SHARED_CALLBACK_INFO_KEY + sharedKey);
+        boolean store = sharedVar != null || this.cancellable || this.totalInjections > 1;
+        if (sharedVar != null) {
+            this.useSharedCallbackInfo(callback, sharedVar.intValue());
+        } else {
+            Integer sharedCount = callback.node.<Integer>getDecoration(CallbackInjector.SHARED_CALLBACKS_KEY + sharedKey, Integer.valueOf(0));
+            boolean share = sharedCount.intValue() > 1;
+            store |= share;
+            this.dupReturnValue(callback);
+            if (store) {
+                this.createCallbackInfo(callback, true);
+            }
+            if (share) {
+                callback.node.<Integer>decorate(CallbackInjector.SHARED_CALLBACK_INFO_KEY + sharedKey, Integer.valueOf(this.callbackInfoVar));
+            }
         }
-        this.invokeCallback(callback, callbackMethod);
+        this.invokeCallback(callback, callbackMethod, store);
         this.injectCancellationCode(callback);
         
         callback.inject();
@@ -640,10 +672,29 @@ public class CallbackInjector extends Injector {
     }
 
     /**
+     * Use a CallbackInfo created by a callback previously injected at the same
+     * node
+     * 
      * @param callback callback handle
+     * @param var local variable holding the CallbackInfo
      */
-    private void loadOrCreateCallbackInfo(final Callback callback) {
-        if (this.cancellable || this.totalInjections > 1) {
+    private void useSharedCallbackInfo(final Callback callback, int var) {
+        this.callbackInfoVar = var;
+        this.callbackInfoClass = callback.target.getCallbackInfoClass();
+        
+        // The shared instance is not created at the method head, so it must not
+        // be reused by this injector at other nodes 
+        this.lastTarget = callback.target;
+        this.lastId = null;
+        this.lastDesc = null;
+    }
+
+    /**
+     * @param callback callback handle
+     * @param stored true if the CallbackInfo was stored in a local
+     */
+    private void loadOrCreateCallbackInfo(final Callback callback, boolean stored) {
+        if (stored) {
             callback.add(new VarInsnNode(Opcodes.ALOAD, this.callbackInfoVar), false, true);
         } else {
             this.createCallbackInfo(callback, false);
@@ -708,7 +759,7 @@ public class CallbackInjector extends Injector {
     /**
      * @param callback callback handle
      */
-    private void invokeCallback(final Callback callback, final MethodNode callbackMethod) {
+    private void invokeCallback(final Callback callback, final MethodNode callbackMethod, boolean storedCallbackInfo) {
         // Push "this" onto the stack if the callback is not static
         if (!this.isStatic) {
             callback.add(new VarInsnNode(Opcodes.ALOAD, 0), false, true);
@@ -720,7 +771,7 @@ public class CallbackInjector extends Injector {
         }
         
         // Push the callback info onto the stack
-        this.loadOrCreateCallbackInfo(callback);
+        this.loadOrCreateCallbackInfo(callback, storedCallbackInfo);
         
         // (Maybe) push the locals onto the stack
         if (callback.canCaptureLocals) {
@@ -740,10 +791,46 @@ public class CallbackInjector extends Injector {
      * @return Identifier to use
      */
     private String getIdentifier(Callback callback) {
-        String baseId = Strings.isNullOrEmpty(this.identifier) ? callback.target.method.name : this.identifier;
-        String locationId = this.ids.get(Integer.valueOf(callback.node.getId()));
+        return this.getIdentifier(callback.target, callback.node);
+    }
+    
+    private String getIdentifier(Target target, InjectionNode node) {
+        String baseId = Strings.isNullOrEmpty(this.identifier) ? target.method.name : this.identifier;
+        String locationId = this.ids.get(Integer.valueOf(node.getId()));
         return baseId + (Strings.isNullOrEmpty(locationId) ? "" : ":" + locationId);
     }
+    
+    /**
+     * Get a key which identifies the CallbackInfo this injector creates for
+     * the specified node, callbacks from other injectors with the same key at
+     * the same node can share the same CallbackInfo instance. The
+     * cancellable flag is part of the key since a callback which is not
+     * cancellable expects to receive a CallbackInfo which cannot be cancelled.
+     * 
+     * @param target Target method
+     * @param node Injection node
+     * @return key
+     */
+    private String getSharedCallbackInfoKey(Target target, InjectionNode node) {
+        String desc = CallbackInjector.getCallbackInfoConstructorDescriptor(target, CallbackInjector.isAtReturn(node));
+        return target.getCallbackInfoClass() + desc + (this.cancellable ? ":cancellable:" : ":") + this.getIdentifier(target, node);
+    }
+    
+    static String getCallbackInfoConstructorDescriptor(Target target, boolean isAtReturn) {
+        return isAtReturn ? CallbackInfo.getConstructorDescriptor(target.returnType) : CallbackInfo.getConstructorDescriptor();
+    }
+    
+    /**
+     * Returns true if the current target of the supplied node is a
+     * <em>non-void</em> RETURN opcode
+     * 
+     * @param node node to check
+     * @return true if value return
+     */
+    static boolean isAtReturn(InjectionNode node) {
+        AbstractInsnNode insn = node.getCurrentTarget();
+        return insn instanceof InsnNode && insn.getOpcode() >= Opcodes.IRETURN && insn.getOpcode() < Opcodes.RETURN;
+    }
 
     /**
      * if (e.isCancelled()) return e.getReturnValue();
@@ -781,7 +868,7 @@ public class CallbackInjector extends Injector {
         } else {
             // Non-void method, so work out which accessor to call to get the
             // return value, and return it
-            callback.add(new VarInsnNode(Opcodes.ALOAD, callback.marshalVar()));
+            callback.add(new VarInsnNode(Opcodes.ALOAD, this.callbackInfoVar));
             String accessor = CallbackInfoReturnable.getReturnAccessor(callback.target.returnType);
             String descriptor = CallbackInfoReturnable.getReturnDescriptor(callback.target.returnType);
             callback.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, this.callbackInfoClass, accessor, descriptor, false));
@@ -60,6 +60,7 @@ import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.SignaturePrinter;
 import org.spongepowered.asm.util.Bytecode.DelegateInitialiser;
+import org.spongepowered.asm.util.perf.InvocationSampler;
 
 import com.google.common.collect.ObjectArrays;
 
@@ -209,6 +210,12 @@ public abstract class Injector {
      * True if the callback method is in an interface 
      */
     protected final boolean isInterface;
+    
+    /**
+     * Target currently being injected into, used to allocate locals for
+     * handler invocation timings
+     */
+    private Target currentTarget;
 
     /**
      * Make a new CallbackInjector for the supplied InjectionInfo
@@ -274,14 +281,19 @@ public abstract class Injector {
      * @param nodes selected nodes
      */
     public final void inject(Target target, List<InjectionNode> nodes) {
-        for (InjectionNode node : nodes) {
-            if (node.isRemoved()) {
-                if (this.info.getMixin().getOption(Option.DEBUG_VERBOSE)) {
-                    Injector.logger.warn("Target node for {} was removed by a previous injector in {}", this.info, target);
+        this.currentTarget = target;
+        try {
+            for (InjectionNode node : nodes) {
+                if (node.isRemoved()) {
+                    if (this.info.getMixin().getOption(Option.DEBUG_VERBOSE)) {
+                        Injector.logger.warn("Target node for {} was removed by a previous injector in {}", this.info, target);
+                    }
+                    continue;
                 }
-                continue;
+                this.inject(target, node);
             }
-            this.inject(target, node);
+        } finally {
+            this.currentTarget = null;
         }
         
         for (InjectionNode node : nodes) {
@@ -451,11 +463,66 @@ public abstract class Injector {
                            this.isInterface ? (isSynthetic && isPrivate ? Opcodes.INVOKESPECIAL : Opcodes.INVOKEINTERFACE) :
                            isPrivate ? Opcodes.INVOKESPECIAL : Opcodes.INVOKEVIRTUAL;
         MethodInsnNode insn = new MethodInsnNode(invokeOpcode, this.classNode.name, handler.name, handler.desc, this.isInterface);
-        insns.add(insn);
+        if (InvocationSampler.isEnabled()) {
+            this.addSampledInvocation(insns, insn);
+        } else {
+            insns.add(insn);
+        }
         this.info.addCallbackInvocation(handler);
         return insn;
     }
 
+    /**
+     * Add a handler invocation which is counted (and if enabled, timed) by the
+     * {@link InvocationSampler}. Timed invocations are wrapped in a handler
+     * which records the time and rethrows if the handler throws. Constructors
+     * are only counted, since the handler could otherwise cover code where
+     * <tt>this</tt> is not yet initialised.
+     * 
+     * @param insns Instruction list to inject into
+     * @param insn Handler invocation
+     */
+    private void addSampledInvocation(InsnList insns, MethodInsnNode insn) {
+        String mixinName = this.info.getMixin().getClassName();
+        String targetName = this.currentTarget != null ? this.currentTarget.toString() : this.classNode.name;
+        int site = InvocationSampler.register(mixinName, this.info.getMethodName(), targetName);
+        String key = InvocationSampler.getKey(mixinName, this.info.getMethodName(), targetName);
+        if (InvocationSampler.isTimingEnabled() && this.currentTarget != null && !(this.currentTarget instanceof Constructor)) {
+            int startVar = this.currentTarget.allocateLocals(2);
+            LabelNode start = new LabelNode();
+            LabelNode end = new LabelNode();
+            LabelNode handler = new LabelNode();
+            LabelNode resume = new LabelNode();
+            this.currentTarget.method.tryCatchBlocks.add(0, new TryCatchBlockNode(start, end, handler, null));
+            
+            insns.add(new LdcInsnNode(Integer.valueOf(site)));
+            insns.add(new LdcInsnNode(key));
+            insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, InvocationSampler.INTERNAL_NAME, "enter", "(ILjava/lang/String;)J", false));
+            insns.add(new VarInsnNode(Opcodes.LSTORE, startVar));
+            insns.add(start);
+            insns.add(insn);
+            insns.add(end);
+            Injector.addSampledExit(insns, site, key, startVar);
+            insns.add(new JumpInsnNode(Opcodes.GOTO, resume));
+            insns.add(handler);
+            Injector.addSampledExit(insns, site, key, startVar);
+            insns.add(new InsnNode(Opcodes.ATHROW));
+            insns.add(resume);
+        } else {
+            insns.add(new LdcInsnNode(Integer.valueOf(site)));
+            insns.add(new LdcInsnNode(key));
+            insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, InvocationSampler.INTERNAL_NAME, "hit", "(ILjava/lang/String;)V", false));
+            insns.add(insn);
+        }
+    }
+    
+    private static void addSampledExit(InsnList insns, int site, String key, int startVar) {
+        insns.add(new LdcInsnNode(Integer.valueOf(site)));
+        insns.add(new LdcInsnNode(key));
+        insns.add(new VarInsnNode(Opcodes.LLOAD, startVar));
+        insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, InvocationSampler.INTERNAL_NAME, "exit", "(ILjava/lang/String;J)V", false));
+    }
+
     /**
      * @param args handler arguments
      * @param insns InsnList to inject insns into
@@ -38,11 +38,13 @@ import org.objectweb.asm.tree.LocalVariableNode;
 import org.spongepowered.asm.mixin.injection.modify.LocalVariableDiscriminator.Context.Local;
 import org.spongepowered.asm.mixin.injection.struct.InjectionInfo;
 import org.spongepowered.asm.mixin.injection.struct.Target;
+import org.spongepowered.asm.service.IMixinMetrics.Metric;
 import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Locals;
 import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.SignaturePrinter;
+import org.spongepowered.asm.util.perf.Metrics;
 
 /**
  * Encapsulates logic for identifying a local variable in a target method using
@@ -151,7 +153,9 @@ public class LocalVariableDiscriminator {
 
         private Local[] initLocals(Target target, boolean argsOnly, AbstractInsnNode node) {
             if (!argsOnly) {
+                long start = Metrics.start();
                 LocalVariableNode[] locals = Locals.getLocalsAt(target.classNode, target.method, node);
+                this.info.recordTime(Metric.LOCALS_TIME, start, -1L);
                 if (locals != null) {
                     Local[] lvt = new Local[locals.length];
                     for (int l = 0; l < locals.length; l++) {
@@ -70,11 +70,13 @@ import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.transformer.ActivityStack;
 import org.spongepowered.asm.mixin.transformer.MixinTargetContext;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
+import org.spongepowered.asm.service.IMixinMetrics.Metric;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.asm.ASM;
 import org.spongepowered.asm.util.asm.MethodNodeEx;
 import org.spongepowered.asm.util.logging.MessageRouter;
+import org.spongepowered.asm.util.perf.Metrics;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
@@ -464,6 +466,8 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
      */
     public void prepare() {
         this.activities.clear();
+        long start = Metrics.start();
+        long allocated = Metrics.allocatedBytes();
         try {
             this.targetNodes.clear();
             IActivity activity = this.activities.begin("?");
@@ -471,6 +475,10 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
                 activity.next("{ target: %s }", targetMethod);
                 Target target = this.mixin.getTargetMethod(targetMethod.getMethod());
                 InjectorTarget injectorTarget = new InjectorTarget(this, target, targetMethod);
+                if (Metrics.isEnabled()) {
+                    this.recordMetric(Metric.TARGETS_SCANNED, 1);
+                    this.recordMetric(Metric.INSNS_SCANNED, target.method.instructions.size());
+                }
                 try {
                     this.targetNodes.put(target, this.injector.find(injectorTarget, this.injectionPoints));
                 } catch (SelectorException ex) {
@@ -488,6 +496,8 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
         } catch (Exception ex) {
             throw new InvalidMixinException(this.mixin, "Unexpecteded " + ex.getClass().getSimpleName() + " preparing "
                     + this.getElementDescription(), ex, this.activities);
+        } finally {
+            this.recordTime(Metric.FIND_TIME, start, allocated);
         }
     }
     
@@ -495,19 +505,25 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
      * Perform pre-injection checks and tasks
      */
     public void preInject() {
+        long start = Metrics.start();
+        long allocated = Metrics.allocatedBytes();
         for (Entry<Target, List<InjectionNode>> entry : this.targetNodes.entrySet()) {
             this.injector.preInject(entry.getKey(), entry.getValue());
         }
+        this.recordTime(Metric.PREINJECT_TIME, start, allocated);
     }
     
     /**
      * Perform injections
      */
     public void inject() {
+        long start = Metrics.start();
+        long allocated = Metrics.allocatedBytes();
         for (Entry<Target, List<InjectionNode>> entry : this.targetNodes.entrySet()) {
             this.injector.inject(entry.getKey(), entry.getValue());
         }
         this.targets.clear();
+        this.recordTime(Metric.INJECT_TIME, start, allocated);
     }
     
     /**
@@ -518,6 +534,10 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
             this.classNode.methods.add(method);
         }
         
+        if (Metrics.isEnabled()) {
+            this.recordMetric(Metric.INJECTIONS, this.injectedCallbackCount);
+        }
+        
         String description = this.getDescription();
         String refMapStatus = this.mixin.getReferenceMapper().getStatus();
         String extraInfo = AnnotatedMethodInfo.getDynamicInfo(this.method) + this.getMessages();
@@ -621,6 +641,35 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
         this.injectedCallbackCount++;
     }
     
+    /**
+     * Record a counter for this injector to the metrics sink, callers should
+     * check {@link Metrics#isEnabled} first
+     * 
+     * @param metric Counter to record
+     * @param value Value to add
+     */
+    public void recordMetric(Metric metric, long value) {
+        Metrics.record(this.mixin.getClassName(), this.methodName, this.mixin.getTargetClassInfo().getClassName(), metric, value);
+    }
+    
+    /**
+     * Record the time and allocations since the supplied starting values for
+     * this injector to the metrics sink
+     * 
+     * @param metric Time counter to record
+     * @param start Start time obtained from {@link Metrics#start}
+     * @param allocated Allocation count obtained from
+     *      {@link Metrics#allocatedBytes}
+     */
+    public void recordTime(Metric metric, long start, long allocated) {
+        if (Metrics.isEnabled()) {
+            String mixinName = this.mixin.getClassName();
+            String targetName = this.mixin.getTargetClassInfo().getClassName();
+            Metrics.recordTime(mixinName, this.methodName, targetName, metric, start);
+            Metrics.recordAllocated(mixinName, this.methodName, targetName, allocated);
+        }
+    }
+    
     /**
      * Notify method, called by injector or injection point when a notable but
      * non-fatal failures occur, for example allows injection points to add
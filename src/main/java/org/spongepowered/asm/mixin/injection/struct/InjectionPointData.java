@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,11 +65,38 @@ import com.google.common.primitives.Ints;
  */
 public class InjectionPointData {
     
+    /**
+     * Type and specifier parsed from an <tt>at</tt> string
+     */
+    static final class ParsedAt {
+        
+        final String type;
+        
+        final Specifier specifier;
+        
+        ParsedAt(String type, Specifier specifier) {
+            this.type = type;
+            this.specifier = specifier;
+        }
+        
+    }
+    
     /**
      * Regex for recognising at declarations
      */
     private static final Pattern AT_PATTERN = InjectionPointData.createPattern(); 
     
+    /**
+     * Maximum number of parsed <tt>at</tt> strings to retain
+     */
+    private static final int MAX_CACHED = 1024;
+    
+    /**
+     * Parsed <tt>at</tt> strings, the set of distinct values is small so we
+     * avoid matching each one against {@link #AT_PATTERN} every time
+     */
+    private static final Map<String, ParsedAt> parsedAts = new ConcurrentHashMap<String, ParsedAt>();
+    
     /**
      * K/V arguments parsed from the "args" node in the {@link At} annotation 
      */
@@ -146,9 +174,9 @@ public class InjectionPointData {
         this.args.put("ordinal", String.valueOf(ordinal));
         this.args.put("opcode", String.valueOf(opcode));
 
-        Matcher matcher = InjectionPointData.AT_PATTERN.matcher(at);
-        this.type = InjectionPointData.parseType(matcher, at);
-        this.specifier = InjectionPointData.parseSpecifier(matcher);
+        ParsedAt parsed = InjectionPointData.parseAt(at);
+        this.type = parsed.type;
+        this.specifier = parsed.specifier;
         
         this.targetRestriction = this.isUnsafe() ? RestrictTargetLevel.ALLOW_ALL : RestrictTargetLevel.METHODS_ONLY;
     }
@@ -448,16 +476,24 @@ public class InjectionPointData {
      * @return parsed constructor type
      */
     public static String parseType(String at) {
-        Matcher matcher = InjectionPointData.AT_PATTERN.matcher(at);
-        return InjectionPointData.parseType(matcher, at);
-    }
-
-    private static String parseType(Matcher matcher, String at) {
-        return matcher.matches() ? matcher.group(1) : at;
+        return InjectionPointData.parseAt(at).type;
     }
-
-    private static Specifier parseSpecifier(Matcher matcher) {
-        return matcher.matches() && matcher.group(3) != null ? Specifier.valueOf(matcher.group(3)) : Specifier.DEFAULT;
+    
+    private static ParsedAt parseAt(String at) {
+        ParsedAt parsed = InjectionPointData.parsedAts.get(at);
+        if (parsed == null) {
+            Matcher matcher = InjectionPointData.AT_PATTERN.matcher(at);
+            if (matcher.matches()) {
+                String specifier = matcher.group(3);
+                parsed = new ParsedAt(matcher.group(1), specifier != null ? Specifier.valueOf(specifier) : Specifier.DEFAULT);
+            } else {
+                parsed = new ParsedAt(at, Specifier.DEFAULT);
+            }
+            if (InjectionPointData.parsedAts.size() < InjectionPointData.MAX_CACHED) {
+                InjectionPointData.parsedAts.put(at, parsed);
+            }
+        }
+        return parsed;
     }
     
     private static int parseInt(String string, int defaultValue) {
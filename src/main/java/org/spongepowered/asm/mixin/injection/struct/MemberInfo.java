@@ -24,6 +24,9 @@
  */
 package org.spongepowered.asm.mixin.injection.struct;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
@@ -222,6 +225,18 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
      */
     private static final String ARROW = "->";
     
+    /**
+     * Maximum number of parsed selectors to retain in the parse cache
+     */
+    private static final int MAX_CACHED = 8192;
+    
+    /**
+     * Parsed selectors by input and remapped selector string. The same handful
+     * of selector strings are commonly used by many mixins, and MemberInfo is
+     * immutable so parsed instances can be shared.
+     */
+    private static final Map<String, MemberInfo> parseCache = new ConcurrentHashMap<String, MemberInfo>();
+    
     /**
      * Member owner in internal form but without L;, can be null
      */
@@ -869,9 +884,7 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
      * @return parsed MemberInfo
      */
     public static MemberInfo parse(final String input, final ISelectorContext context) {
-        String desc = null;
-        String owner = null;
-        String name = Strings.nullToEmpty(input).replaceAll("\\s", "");
+        String name = MemberInfo.stripWhitespace(Strings.nullToEmpty(input));
         String tail = null;
         
         int arrowPos = name.indexOf(MemberInfo.ARROW);
@@ -884,6 +897,25 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
             name = context.remap(name);
         }
         
+        if (input == null) {
+            return MemberInfo.parse(name, tail, input);
+        }
+        
+        String key = tail == null && name.equals(input) ? input : input + '\u0000' + name + '\u0000' + tail;
+        MemberInfo memberInfo = MemberInfo.parseCache.get(key);
+        if (memberInfo == null) {
+            memberInfo = MemberInfo.parse(name, tail, input);
+            if (MemberInfo.parseCache.size() < MemberInfo.MAX_CACHED) {
+                MemberInfo.parseCache.put(key, memberInfo);
+            }
+        }
+        return memberInfo;
+    }
+    
+    private static MemberInfo parse(String name, String tail, String input) {
+        String desc = null;
+        String owner = null;
+        
         int lastDotPos = name.lastIndexOf('.');
         int semiColonPos = name.indexOf(';');
         if (lastDotPos > -1) {
@@ -945,6 +977,37 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
         return new MemberInfo(name, owner, desc, quantifier, tail, input);
     }
 
+    /**
+     * Remove whitespace from the supplied string, returns the original string
+     * if it contains no whitespace
+     */
+    private static String stripWhitespace(String input) {
+        int length = input.length();
+        int pos = 0;
+        while (pos < length && !MemberInfo.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+        if (pos == length) {
+            return input;
+        }
+        
+        StringBuilder sb = new StringBuilder(length).append(input, 0, pos);
+        for (; pos < length; pos++) {
+            char c = input.charAt(pos);
+            if (!MemberInfo.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Whitespace as matched by <tt>\\s</tt> in a regular expression
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
     /**
      * Return the supplied mapping parsed as a MemberInfo
      * 
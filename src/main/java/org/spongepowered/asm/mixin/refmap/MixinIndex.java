@@ -0,0 +1,269 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.refmap;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.spongepowered.asm.service.MixinService;
+
+import com.google.common.io.Closeables;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Index of the mixins compiled alongside a refmap, generated by the
+ * <em>Annotation Processor</em> and written next to the refmap. The index
+ * contains the information about each mixin which is needed to prepare the
+ * mixin, allowing the runtime to register mixins with their targets without
+ * reading the mixin bytecode. The mixin bytecode is then only read when one of
+ * the mixin's targets is actually loaded.
+ */
+public final class MixinIndex {
+    
+    /**
+     * Suffix of index resources, the index for a refmap is named after the
+     * refmap with its <tt>.json</tt> extension replaced with this suffix
+     */
+    public static final String SUFFIX = ".index.json";
+    
+    /**
+     * Shared Gson instance used to read indexes
+     */
+    private static final Gson GSON = new Gson();
+    
+    /**
+     * Index entry for a single mixin
+     */
+    public static final class Entry {
+        
+        /**
+         * Public targets, as internal names
+         */
+        private final List<String> value = new ArrayList<String>();
+        
+        /**
+         * Private targets, as they appear in the annotation
+         */
+        private final List<String> targets = new ArrayList<String>();
+        
+        /**
+         * Declared priority, or null if the mixin does not declare a priority 
+         */
+        private Integer priority;
+        
+        /**
+         * True if the mixin is decorated with <tt>&#64;Pseudo</tt>
+         */
+        private boolean pseudo;
+        
+        /**
+         * True if the mixin is an interface
+         */
+        @SerializedName("interface")
+        private boolean isInterface;
+        
+        /**
+         * Number of methods in the mixin which are neither accessors nor
+         * invokers
+         */
+        private int methods;
+        
+        /**
+         * Number of accessors and invokers in the mixin
+         */
+        private int accessors;
+        
+        /**
+         * Number of injectors in the mixin
+         */
+        private int injectors;
+        
+        public Entry addPublicTarget(String internalName) {
+            this.value.add(internalName);
+            return this;
+        }
+        
+        public Entry addPrivateTarget(String name) {
+            this.targets.add(name);
+            return this;
+        }
+        
+        public Entry setPriority(Integer priority) {
+            this.priority = priority;
+            return this;
+        }
+        
+        public Entry setPseudo(boolean pseudo) {
+            this.pseudo = pseudo;
+            return this;
+        }
+        
+        public Entry setInterface(boolean isInterface) {
+            this.isInterface = isInterface;
+            return this;
+        }
+        
+        public Entry setMethodCount(int methods) {
+            this.methods = methods;
+            return this;
+        }
+        
+        public Entry setAccessorCount(int accessors) {
+            this.accessors = accessors;
+            return this;
+        }
+        
+        public Entry setInjectorCount(int injectors) {
+            this.injectors = injectors;
+            return this;
+        }
+
+        public List<String> getPublicTargets() {
+            return this.value != null ? Collections.<String>unmodifiableList(this.value) : Collections.<String>emptyList();
+        }
+
+        public List<String> getPrivateTargets() {
+            return this.targets != null ? Collections.<String>unmodifiableList(this.targets) : Collections.<String>emptyList();
+        }
+        
+        public Integer getPriority() {
+            return this.priority;
+        }
+        
+        public boolean isPseudo() {
+            return this.pseudo;
+        }
+        
+        public boolean isInterface() {
+            return this.isInterface;
+        }
+        
+        public int getMethodCount() {
+            return this.methods;
+        }
+        
+        public int getAccessorCount() {
+            return this.accessors;
+        }
+        
+        public int getInjectorCount() {
+            return this.injectors;
+        }
+        
+    }
+    
+    /**
+     * Index entries, keyed by mixin internal name
+     */
+    private final Map<String, Entry> mixins = new TreeMap<String, Entry>();
+    
+    /**
+     * Add an entry to this index
+     * 
+     * @param mixinClassRef Internal name of the mixin
+     * @param entry Index entry
+     */
+    public void add(String mixinClassRef, Entry entry) {
+        this.mixins.put(mixinClassRef, entry);
+    }
+    
+    /**
+     * Get the index entry for the specified mixin
+     * 
+     * @param mixinClassRef Internal name of the mixin
+     * @return index entry or null if the mixin is not in this index
+     */
+    public Entry get(String mixinClassRef) {
+        return this.mixins.get(mixinClassRef);
+    }
+    
+    /**
+     * Get whether this index contains no entries
+     */
+    public boolean isEmpty() {
+        return this.mixins.isEmpty();
+    }
+
+    /**
+     * Write this index out to the specified writer
+     * 
+     * @param writer Writer to write to
+     */
+    public void write(Appendable writer) {
+        new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(this, writer);
+    }
+    
+    /**
+     * Get the name of the index resource for the specified refmap resource
+     * 
+     * @param refMapResource refmap resource name
+     * @return index resource name
+     */
+    public static String getResourceName(String refMapResource) {
+        if (refMapResource.endsWith(".json")) {
+            return refMapResource.substring(0, refMapResource.length() - 5) + MixinIndex.SUFFIX;
+        }
+        return refMapResource + MixinIndex.SUFFIX;
+    }
+    
+    /**
+     * Read the index for the specified refmap resource
+     * 
+     * @param refMapResource refmap resource name
+     * @return index or null if no index is available for the refmap
+     */
+    public static MixinIndex read(String refMapResource) {
+        String resourcePath = MixinIndex.getResourceName(refMapResource);
+        Reader reader = null;
+        try {
+            InputStream resource = MixinService.getService().getResourceAsStream(resourcePath);
+            if (resource != null) {
+                reader = new BufferedReader(new InputStreamReader(resource, "UTF-8"));
+                return MixinIndex.GSON.fromJson(reader, MixinIndex.class);
+            }
+        } catch (JsonParseException ex) {
+            MixinService.getService().getLogger("mixin").error("Invalid mixin index JSON in {}: {} {}", resourcePath,
+                    ex.getClass().getName(), ex.getMessage());
+        } catch (Exception ex) {
+            MixinService.getService().getLogger("mixin").error("Failed reading mixin index JSON from {}: {} {}", resourcePath,
+                    ex.getClass().getName(), ex.getMessage());
+        } finally {
+            Closeables.closeQuietly(reader);
+        }
+        
+        return null;
+    }
+    
+}
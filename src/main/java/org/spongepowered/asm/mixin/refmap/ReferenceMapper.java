@@ -24,17 +24,24 @@
  */
 package org.spongepowered.asm.mixin.refmap;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.tools.Diagnostic.Kind;
 
-import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Parallel;
 import org.spongepowered.asm.util.logging.MessageRouter;
 
 import com.google.common.collect.Maps;
@@ -66,6 +73,18 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
      * Passthrough mapper, used as failover 
      */
     public static final ReferenceMapper DEFAULT_MAPPER = new ReferenceMapper(true, "invalid");
+    
+    /**
+     * Shared Gson instance, refmaps may be read concurrently by {@link #preload}
+     */
+    private static final Gson GSON = new Gson();
+    
+    /**
+     * Refmaps read ahead of time by {@link #preload}, entries are removed when
+     * the refmap is read and any left over are discarded by
+     * {@link #clearPreloaded}
+     */
+    private static final Map<String, ReferenceMapper> preloadedMappers = new ConcurrentHashMap<String, ReferenceMapper>();
 
     /**
      * "Default" mappings. The set of mappings to use as "default" is specified
@@ -256,14 +275,14 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
      * @return new refmap or {@link #DEFAULT_MAPPER} if reading fails
      */
     public static ReferenceMapper read(String resourcePath) {
-        Reader reader = null;
+        ReferenceMapper preloaded = ReferenceMapper.preloadedMappers.remove(resourcePath);
+        if (preloaded != null) {
+            return preloaded;
+        }
+        
         try {
-            IMixinService service = MixinService.getService();
-            InputStream resource = service.getResourceAsStream(resourcePath);
-            if (resource != null) {
-                reader = new InputStreamReader(resource);
-                ReferenceMapper mapper = ReferenceMapper.readJson(reader);
-                mapper.setResourceName(resourcePath);
+            ReferenceMapper mapper = ReferenceMapper.readResource(resourcePath);
+            if (mapper != null) {
                 return mapper;
             }
         } catch (JsonParseException ex) {
@@ -272,13 +291,62 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
         } catch (Exception ex) {
             MessageRouter.getMessager().printMessage(Kind.ERROR, String.format("Failed reading REFMAP JSON from %s: %s %s",
                     resourcePath, ex.getClass().getName(), ex.getMessage()));
-        } finally {
-            Closeables.closeQuietly(reader);
         }
         
         return ReferenceMapper.DEFAULT_MAPPER;
     }
     
+    /**
+     * Read the specified refmap resources concurrently, so that subsequent
+     * calls to {@link #read(String)} for them do not need to read them.
+     * Resources which cannot be read are skipped here and the error is
+     * reported by {@link #read(String)}.
+     * 
+     * @param resourcePaths Resources to read
+     */
+    public static void preload(Collection<String> resourcePaths) {
+        List<Callable<ReferenceMapper>> tasks = new ArrayList<Callable<ReferenceMapper>>();
+        for (final String resourcePath : resourcePaths) {
+            if (ReferenceMapper.preloadedMappers.containsKey(resourcePath)) {
+                continue;
+            }
+            tasks.add(new Callable<ReferenceMapper>() {
+                @Override
+                public ReferenceMapper call() throws Exception {
+                    ReferenceMapper mapper = ReferenceMapper.readResource(resourcePath);
+                    if (mapper != null) {
+                        ReferenceMapper.preloadedMappers.put(resourcePath, mapper);
+                    }
+                    return mapper;
+                }
+            });
+        }
+        Parallel.invokeAll("Mixin Refmap Reader", tasks);
+    }
+    
+    /**
+     * Discard refmaps read by {@link #preload} which were not subsequently
+     * consumed by {@link #read(String)}
+     */
+    public static void clearPreloaded() {
+        ReferenceMapper.preloadedMappers.clear();
+    }
+    
+    private static ReferenceMapper readResource(String resourcePath) throws IOException {
+        InputStream resource = MixinService.getService().getResourceAsStream(resourcePath);
+        if (resource == null) {
+            return null;
+        }
+        Reader reader = new BufferedReader(new InputStreamReader(resource));
+        try {
+            ReferenceMapper mapper = ReferenceMapper.readJson(reader);
+            mapper.setResourceName(resourcePath);
+            return mapper;
+        } finally {
+            Closeables.closeQuietly(reader);
+        }
+    }
+    
     /**
      * Read a new refmap instance from the specified reader 
      * 
@@ -297,7 +365,7 @@ public final class ReferenceMapper implements IReferenceMapper, Serializable {
     }
 
     private static ReferenceMapper readJson(Reader reader) {
-        return new Gson().fromJson(reader, ReferenceMapper.class);
+        return ReferenceMapper.GSON.fromJson(reader, ReferenceMapper.class);
     }
     
 }
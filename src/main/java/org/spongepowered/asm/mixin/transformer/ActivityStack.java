@@ -24,14 +24,48 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
 import org.spongepowered.asm.mixin.extensibility.IActivityContext;
+import org.spongepowered.asm.util.Bytecode;
 
 /**
  * Tracker for processors which want to express their activity stack on crash in
  * a user-readable way.
+ * 
+ * <p>Since the stack is only rendered when something goes wrong, activities
+ * record their descriptions as breadcrumbs (a format and its arguments, or an
+ * instruction) and do not format them until the stack is converted to a
+ * string. Note that this means arguments are rendered in their state at the
+ * time of rendering, mutable arguments should be converted to strings by the
+ * caller if their state at the time of the activity is important.</p>
  */
 public class ActivityStack implements IActivityContext {
     
+    /**
+     * A fragment of text appended to an activity description
+     */
+    static final class Fragment {
+        
+        final String format;
+        
+        final Object[] args;
+        
+        Fragment next;
+        
+        Fragment(String format, Object[] args) {
+            this.format = format;
+            this.args = args;
+        }
+        
+    }
+    
     /**
      * An activity node in the activity stack (yes it's actually a doubly-linked
      * list).
@@ -39,18 +73,81 @@ public class ActivityStack implements IActivityContext {
     public class Activity implements IActivity {
         
         /**
-         * Description of this activity
+         * Description of this activity, or the format for the description if
+         * args are present
+         * 
+         * @deprecated Use {@link #getDescription} to get the formatted
+         *      description, this field is only the description format and is
+         *      null if the activity describes an instruction
          */
+        @Deprecated
         public String description;
         
+        /**
+         * Format arguments for the description, null if the description is a
+         * literal
+         */
+        private Object[] args;
+        
+        /**
+         * Instruction described by this activity, the member information of
+         * the instruction is captured when the activity begins since it may be
+         * modified by the activity itself
+         */
+        private AbstractInsnNode insn;
+        private String insnOwner, insnName, insnDesc;
+        
+        /**
+         * Text appended to the description
+         */
+        private Fragment appended;
+        
         Activity last, next;
         
-        Activity(Activity last, String description) {
+        Activity(Activity last, String description, Object[] args) {
             if (last != null) {
                 last.next = this;
             }
             this.last = last;
             this.description = description;
+            this.args = args;
+        }
+        
+        /**
+         * Get the description of this activity, formats the description and
+         * any appended text
+         * 
+         * @return activity description, or null if this activity has no
+         *      description
+         */
+        public String getDescription() {
+            if (this.insn == null && this.appended == null) {
+                return ActivityStack.format(this.description, this.args);
+            }
+            
+            StringBuilder sb = new StringBuilder();
+            if (this.insn != null) {
+                this.describeInsn(sb);
+            } else if (this.description != null) {
+                sb.append(ActivityStack.format(this.description, this.args));
+            }
+            for (Fragment fragment = this.appended; fragment != null; fragment = fragment.next) {
+                sb.append(ActivityStack.format(fragment.format, fragment.args));
+            }
+            return sb.toString();
+        }
+
+        private void describeInsn(StringBuilder sb) {
+            sb.append(Bytecode.getOpcodeName(this.insn)).append(' ');
+            if (this.insn instanceof MethodInsnNode) {
+                sb.append(this.insnOwner).append("::").append(this.insnName).append(this.insnDesc);
+            } else if (this.insn instanceof FieldInsnNode) {
+                sb.append(this.insnOwner).append("::").append(this.insnName).append(':').append(this.insnDesc);
+            } else if (this.insn instanceof TypeInsnNode) {
+                sb.append(this.insnDesc);
+            } else if (this.insn instanceof InvokeDynamicInsnNode) {
+                sb.append(this.insnName).append(' ').append(this.insnDesc);
+            }
         }
         
         /**
@@ -60,7 +157,7 @@ public class ActivityStack implements IActivityContext {
          */
         @Override
         public void append(String text) {
-            this.description = this.description != null ? this.description + text : text;
+            this.append(text, (Object[])null);
         }
         
         /**
@@ -71,7 +168,22 @@ public class ActivityStack implements IActivityContext {
          */
         @Override
         public void append(String textFormat, Object...args) {
-            this.append(String.format(textFormat, args));
+            if (this.description == null && this.insn == null && this.appended == null) {
+                this.description = textFormat;
+                this.args = args;
+                return;
+            }
+            
+            Fragment fragment = new Fragment(textFormat, args);
+            if (this.appended == null) {
+                this.appended = fragment;
+                return;
+            }
+            Fragment tail = this.appended;
+            while (tail.next != null) {
+                tail = tail.next;
+            }
+            tail.next = fragment;
         }
         
         /**
@@ -94,10 +206,7 @@ public class ActivityStack implements IActivityContext {
          */
         @Override
         public void next(String description) {
-            if (this.next != null) {
-                this.next.end();
-            }
-            this.description = description;
+            this.next(description, (Object[])null);
         }
         
         /**
@@ -109,10 +218,44 @@ public class ActivityStack implements IActivityContext {
          */
         @Override
         public void next(String descriptionFormat, Object... args) {
-            if (descriptionFormat == null) {
-                descriptionFormat = "null";
+            if (this.next != null) {
+                this.next.end();
+            }
+            this.description = descriptionFormat != null ? descriptionFormat : "null";
+            this.args = args;
+            this.insn = null;
+            this.insnOwner = this.insnName = this.insnDesc = null;
+            this.appended = null;
+        }
+        
+        /**
+         * End this activity (and any descendants) and begin the next activity
+         * using the same activity handle, the new activity is described by the
+         * supplied instruction
+         * 
+         * @param insn Instruction being processed
+         */
+        public void next(AbstractInsnNode insn) {
+            this.next((String)null, (Object[])null);
+            this.description = null;
+            this.insn = insn;
+            if (insn instanceof MethodInsnNode) {
+                MethodInsnNode methodInsn = (MethodInsnNode)insn;
+                this.insnOwner = methodInsn.owner;
+                this.insnName = methodInsn.name;
+                this.insnDesc = methodInsn.desc;
+            } else if (insn instanceof FieldInsnNode) {
+                FieldInsnNode fieldInsn = (FieldInsnNode)insn;
+                this.insnOwner = fieldInsn.owner;
+                this.insnName = fieldInsn.name;
+                this.insnDesc = fieldInsn.desc;
+            } else if (insn instanceof TypeInsnNode) {
+                this.insnDesc = ((TypeInsnNode)insn).desc;
+            } else if (insn instanceof InvokeDynamicInsnNode) {
+                InvokeDynamicInsnNode invokeInsn = (InvokeDynamicInsnNode)insn;
+                this.insnName = invokeInsn.name;
+                this.insnDesc = invokeInsn.desc;
             }
-            this.next(String.format(descriptionFormat, args));
         }
         
     }
@@ -133,7 +276,7 @@ public class ActivityStack implements IActivityContext {
     }
     
     public ActivityStack(String root, String glue) {
-        this.head = this.tail = new Activity(null, root);
+        this.head = this.tail = new Activity(null, root, null);
         this.glue = glue;
     }
     
@@ -153,8 +296,8 @@ public class ActivityStack implements IActivityContext {
      * @return new activity handle
      */
     @Override
-    public IActivity begin(String description) {
-        return this.tail = new Activity(this.tail, description != null ? description : "null");
+    public Activity begin(String description) {
+        return this.tail = new Activity(this.tail, description != null ? description : "null", null);
     }
     
     /**
@@ -165,11 +308,8 @@ public class ActivityStack implements IActivityContext {
      * @return new activity handle
      */
     @Override
-    public IActivity begin(String descriptionFormat, Object... args) {
-        if (descriptionFormat == null) {
-            descriptionFormat = "null";
-        }
-        return this.tail = new Activity(this.tail, String.format(descriptionFormat, args));
+    public Activity begin(String descriptionFormat, Object... args) {
+        return this.tail = new Activity(this.tail, descriptionFormat != null ? descriptionFormat : "null", args);
     }
 
     void end(Activity activity) {
@@ -194,14 +334,16 @@ public class ActivityStack implements IActivityContext {
      */
     @Override
     public String toString(String glue) {
-        if (this.head.description == null && this.head.next == null) {
+        String headDescription = this.head.getDescription();
+        if (headDescription == null && this.head.next == null) {
             return "Unknown";
         }
         
         StringBuilder sb = new StringBuilder();
         for (Activity activity = this.head; activity != null; activity = activity.next) {
-            if (activity.description != null) {
-                sb.append(activity.description);
+            String description = activity == this.head ? headDescription : activity.getDescription();
+            if (description != null) {
+                sb.append(description);
                 if (activity.next != null) {
                     sb.append(glue);
                 }
@@ -209,5 +351,16 @@ public class ActivityStack implements IActivityContext {
         }
         return sb.toString();
     }
+    
+    static String format(String format, Object[] args) {
+        if (format == null || args == null) {
+            return format;
+        }
+        try {
+            return String.format(format, args);
+        } catch (IllegalFormatException ex) {
+            return format + " " + Arrays.toString(args);
+        }
+    }
 
 }
@@ -24,6 +24,7 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -57,6 +58,7 @@ import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Member.Type;
 import org.spongepowered.asm.mixin.transformer.MixinInfo.MixinClassNode;
+import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
@@ -66,6 +68,7 @@ import org.spongepowered.asm.util.Locals;
 import org.spongepowered.asm.util.asm.ClassNodeAdapter;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
+import org.spongepowered.asm.util.perf.Trace;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -482,7 +485,7 @@ public final class ClassInfo {
      */
     public class Method extends Member {
 
-        private final List<FrameData> frames;
+        private List<FrameData> frames;
         
         private boolean isAccessor;
         
@@ -535,6 +538,9 @@ public final class ClassInfo {
         }
 
         public List<FrameData> getFrames() {
+            if (this.frames == null) {
+                ClassInfo.this.restoreFrames();
+            }
             return this.frames;
         }
         
@@ -671,9 +677,10 @@ public final class ClassInfo {
 
     /**
      * Loading and parsing classes is expensive, so keep a cache of all the
-     * information we generate
+     * information we generate. Synchronised since metadata may be requested
+     * by class writers and audit threads outside of the processor lock
      */
-    private static final Map<String, ClassInfo> cache = new HashMap<String, ClassInfo>();
+    private static final Map<String, ClassInfo> cache = Collections.synchronizedMap(new HashMap<String, ClassInfo>());
 
     private static final ClassInfo OBJECT = new ClassInfo();
 
@@ -789,6 +796,12 @@ public final class ClassInfo {
      * Declared nest members 
      */
     private Set<String> nestMembers;
+    
+    /**
+     * True if this info was restored from a {@link ClassInfoSnapshot} and
+     * method frames have not yet been read from the class bytes
+     */
+    private volatile boolean restored;
 
     /**
      * Private constructor used to initialise the ClassInfo for {@link Object}
@@ -900,9 +913,142 @@ public final class ClassInfo {
         }
     }
 
+    /**
+     * Initialise a ClassInfo from a {@link ClassInfoSnapshot} record. Method
+     * frames are not restored, and are read from the class bytes on demand
+     *
+     * @param entry Snapshot record to restore
+     */
+    ClassInfo(ClassInfoSnapshot.Entry entry) {
+        this.name = entry.name;
+        this.superName = entry.superName;
+        this.outerName = entry.outerName;
+        this.isInner = entry.hasFlag(ClassInfoSnapshot.CLASS_INNER);
+        this.isProbablyStatic = entry.hasFlag(ClassInfoSnapshot.CLASS_PROBABLY_STATIC);
+        this.isInterface = entry.hasFlag(ClassInfoSnapshot.CLASS_INTERFACE);
+        this.access = entry.access;
+        this.interfaces = new HashSet<String>(entry.interfaces);
+        this.initialisers = new HashSet<Method>();
+        this.methods = new HashSet<Method>();
+        this.fields = new HashSet<Field>();
+        this.isMixin = false;
+        this.mixin = null;
+        this.mixins = new HashSet<MixinInfo>();
+        
+        for (ClassInfoSnapshot.Member member : entry.methods) {
+            Method method = new Method(member.name, member.desc, member.access);
+            method.setUnique(member.hasFlag(ClassInfoSnapshot.MEMBER_UNIQUE));
+            method.setDecoratedFinal(member.hasFlag(ClassInfoSnapshot.MEMBER_DECORATED_FINAL),
+                    member.hasFlag(ClassInfoSnapshot.MEMBER_DECORATED_MUTABLE));
+            method.isAccessor = member.hasFlag(ClassInfoSnapshot.MEMBER_ACCESSOR);
+            if (member.name.startsWith("<")) {
+                this.initialisers.add(method);
+            } else {
+                this.methods.add(method);
+            }
+        }
+        
+        for (ClassInfoSnapshot.Member member : entry.fields) {
+            Field field = new Field(member.name, member.desc, member.access);
+            field.setUnique(member.hasFlag(ClassInfoSnapshot.MEMBER_UNIQUE));
+            field.setDecoratedFinal(member.hasFlag(ClassInfoSnapshot.MEMBER_DECORATED_FINAL),
+                    member.hasFlag(ClassInfoSnapshot.MEMBER_DECORATED_MUTABLE));
+            this.fields.add(field);
+        }
+
+        this.methodMapper = new MethodMapper(MixinEnvironment.getCurrentEnvironment(), this);
+        this.signature = ClassSignature.ofLazy(entry.signature);
+        this.nestHost = entry.nestHost;
+        if (entry.nestMembers != null) {
+            this.nestMembers = new LinkedHashSet<String>(entry.nestMembers);
+        }
+        this.restored = true;
+    }
+    
+    /**
+     * Read the frames of methods in a class which was restored from a
+     * snapshot from the class bytes
+     */
+    private synchronized void restoreFrames() {
+        if (!this.restored) {
+            return;
+        }
+        this.restored = false;
+        
+        try {
+            ClassNode classNode = ClassInfo.readClassNode(this.name);
+            for (MethodNode methodNode : classNode.methods) {
+                for (Method method : methodNode.name.startsWith("<") ? this.initialisers : this.methods) {
+                    if (method.getOriginalName().equals(methodNode.name) && method.getOriginalDesc().equals(methodNode.desc)) {
+                        method.frames = method.gatherFrames(methodNode);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            ClassInfo.logger.catching(Level.TRACE, ex);
+            ClassInfo.logger.warn("Error loading class: {} ({}: {})", this.name, ex.getClass().getName(), ex.getMessage());
+        }
+        
+        // Methods which could not be matched get no frames rather than null
+        for (Set<Method> methods : ImmutableList.of(this.methods, this.initialisers)) {
+            for (Method method : methods) {
+                if (method.frames == null) {
+                    method.frames = Collections.<FrameData>emptyList();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Create a {@link ClassInfoSnapshot} record for this class
+     * 
+     * @return snapshot record or null if this class is a mixin or a mixin
+     *      target, or has otherwise been modified
+     */
+    private ClassInfoSnapshot.Entry createSnapshotEntry() {
+        if (this.isMixin || this == ClassInfo.OBJECT || !this.mixins.isEmpty() || this.appliedMixins != null) {
+            return null;
+        }
+        
+        ClassInfoSnapshot.Entry entry = new ClassInfoSnapshot.Entry();
+        entry.name = this.name;
+        entry.superName = this.superName;
+        entry.outerName = this.outerName;
+        entry.signature = this.signature.toString();
+        entry.nestHost = this.nestHost;
+        entry.access = this.access;
+        entry.flags = (this.isInterface ? ClassInfoSnapshot.CLASS_INTERFACE : 0)
+                | (this.isInner ? ClassInfoSnapshot.CLASS_INNER : 0)
+                | (this.isProbablyStatic ? ClassInfoSnapshot.CLASS_PROBABLY_STATIC : 0);
+        entry.interfaces.addAll(this.interfaces);
+        if (this.nestMembers != null) {
+            entry.nestMembers = new ArrayList<String>(this.nestMembers);
+        }
+        if (!ClassInfo.addSnapshotMembers(entry.methods, this.initialisers) || !ClassInfo.addSnapshotMembers(entry.methods, this.methods)
+                || !ClassInfo.addSnapshotMembers(entry.fields, this.fields)) {
+            return null;
+        }
+        return entry;
+    }
+    
+    private static boolean addSnapshotMembers(List<ClassInfoSnapshot.Member> entries, Set<? extends Member> members) {
+        for (Member member : members) {
+            if (member.isInjected()) {
+                return false;
+            }
+            int flags = (member.isUnique() ? ClassInfoSnapshot.MEMBER_UNIQUE : 0)
+                    | (member.isDecoratedFinal() ? ClassInfoSnapshot.MEMBER_DECORATED_FINAL : 0)
+                    | (member.isDecoratedMutable() ? ClassInfoSnapshot.MEMBER_DECORATED_MUTABLE : 0)
+                    | (member instanceof Method && ((Method)member).isAccessor() ? ClassInfoSnapshot.MEMBER_ACCESSOR : 0);
+            entries.add(new ClassInfoSnapshot.Member(member.getOriginalName(), member.getOriginalDesc(), member.getAccess(), flags));
+        }
+        return true;
+    }
+
     void addInterface(String iface) {
         this.interfaces.add(iface);
         this.getSignature().addInterface(iface);
+        HierarchyCache.invalidate();
     }
 
     void addMethod(MethodNode method) {
@@ -917,6 +1063,21 @@ public final class ClassInfo {
         }
     }
 
+    /**
+     * Get the class info of a mixin which targets this class when traversing
+     * the hierarchy. Deferred mixins are realised on demand, and mixins which
+     * fail to realise are skipped here since their error is raised again when
+     * they are applied to their targets.
+     */
+    private static ClassInfo getMixinClassInfo(MixinInfo mixin) {
+        try {
+            return mixin.getClassInfo();
+        } catch (InvalidMixinException ex) {
+            ClassInfo.logger.debug("Skipping mixin {} which could not be realised: {}", mixin.getClassName(), ex.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Add a mixin which targets this class
      */
@@ -925,6 +1086,7 @@ public final class ClassInfo {
             throw new IllegalArgumentException("Cannot add target " + this.name + " for " + mixin.getClassName() + " because the target is a mixin");
         }
         this.mixins.add(mixin);
+        HierarchyCache.invalidate();
     }
     
     /**
@@ -1242,7 +1404,10 @@ public final class ClassInfo {
             }
         } else if (!this.isMixin && includeMixins) {
             for (MixinInfo mixin : this.mixins) {
-                mixin.getClassInfo().addMethodsRecursive(methods, includeMixins);
+                ClassInfo mixinClass = ClassInfo.getMixinClassInfo(mixin);
+                if (mixinClass != null) {
+                    mixinClass.addMethodsRecursive(methods, includeMixins);
+                }
             }
         }
 
@@ -1371,7 +1536,17 @@ public final class ClassInfo {
             return true;
         }
         
-        return this.findSuperClass(superClass.name, traversal, includeInterfaces) != null;
+        if (traversal != Traversal.NONE) {
+            return this.findSuperClass(superClass.name, traversal, includeInterfaces) != null;
+        }
+        
+        HierarchyCache.PairCache<Boolean> superClasses = HierarchyCache.get().getSuperClasses(includeInterfaces);
+        Boolean hasSuperClass = superClasses.get(this, superClass);
+        if (hasSuperClass == null) {
+            hasSuperClass = Boolean.valueOf(this.findSuperClass(superClass.name, traversal, includeInterfaces) != null);
+            superClasses.put(this, superClass, hasSuperClass);
+        }
+        return hasSuperClass.booleanValue();
     }
 
     /**
@@ -1394,7 +1569,7 @@ public final class ClassInfo {
      * @return Matched superclass or null if not found
      */
     public ClassInfo findSuperClass(String superClass, Traversal traversal) {
-        return this.findSuperClass(superClass, traversal, false, new HashSet<String>());
+        return this.findSuperClass(superClass, traversal, false, traversal != Traversal.NONE ? new HashSet<String>() : null);
     }
     
     /**
@@ -1411,7 +1586,8 @@ public final class ClassInfo {
             return null;
         }
         
-        return this.findSuperClass(superClass, traversal, includeInterfaces, new HashSet<String>());
+        // Mixins are never traversed without traversal so no set is needed
+        return this.findSuperClass(superClass, traversal, includeInterfaces, traversal != Traversal.NONE ? new HashSet<String>() : null);
     }
     
     private ClassInfo findSuperClass(String superClass, Traversal traversal, boolean includeInterfaces, Set<String> traversed) {
@@ -1443,7 +1619,10 @@ public final class ClassInfo {
                     continue;
                 }
                 traversed.add(mixinClassName);
-                ClassInfo mixinClass = mixin.getClassInfo();
+                ClassInfo mixinClass = ClassInfo.getMixinClassInfo(mixin);
+                if (mixinClass == null) {
+                    continue;
+                }
                 if (superClass.equals(mixinClass.getName())) {
                     return mixinClass;
                 }
@@ -1503,7 +1682,7 @@ public final class ClassInfo {
 
         while (superClass != null && superClass != ClassInfo.OBJECT) {
             for (MixinInfo minion : superClass.mixins) {
-                if (minion.getClassInfo().equals(mixin)) {
+                if (mixin.equals(ClassInfo.getMixinClassInfo(minion))) {
                     return superClass;
                 }
             }
@@ -1780,7 +1959,8 @@ public final class ClassInfo {
 
             if (traversal.canTraverse()) {
                 for (MixinInfo mixin : this.mixins) {
-                    M mixinMember = mixin.getClassInfo().findMember(name, desc, flags, type);
+                    ClassInfo mixinClass = ClassInfo.getMixinClassInfo(mixin);
+                    M mixinMember = mixinClass != null ? mixinClass.findMember(name, desc, flags, type) : null;
                     if (mixinMember != null) {
                         return this.cloneMember(mixinMember);
                     }
@@ -1982,7 +2162,9 @@ public final class ClassInfo {
      */
     static ClassInfo fromClassNode(ClassNode classNode) {
         ClassInfo info = ClassInfo.cache.get(classNode.name);
-        if (info == null) {
+        // A mixin which was deferred may have been looked up as a plain class
+        // before it was read, in which case replace the cached entry
+        if (info == null || (classNode instanceof MixinClassNode && !info.isMixin)) {
             info = new ClassInfo(classNode);
             ClassInfo.cache.put(classNode.name, info);
         }
@@ -2003,15 +2185,19 @@ public final class ClassInfo {
 
         ClassInfo info = ClassInfo.cache.get(className);
         if (info == null) {
+            long traceStart = Trace.start();
             try {
-                int flags = MixinEnvironment.getCurrentEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
-                ClassNode classNode = MixinService.getService().getBytecodeProvider().getClassNode(className, true, flags);
-                info = new ClassInfo(classNode);
+                ClassInfoSnapshot snapshot = ClassInfoSnapshot.getInstance();
+                info = snapshot != null ? snapshot.restore(className) : null;
+                if (info == null) {
+                    info = new ClassInfo(ClassInfo.readClassNode(className));
+                }
             } catch (Exception ex) {
                 ClassInfo.logger.catching(Level.TRACE, ex);
                 ClassInfo.logger.warn("Error loading class: {} ({}: {})", className, ex.getClass().getName(), ex.getMessage());
 //                ex.printStackTrace();
             }
+            Trace.end(Trace.CLASSINFO, "load", traceStart, "class", className);
 
             // Put null in the cache if load failed
             ClassInfo.cache.put(className, info);
@@ -2021,6 +2207,29 @@ public final class ClassInfo {
         return info;
     }
     
+    private static ClassNode readClassNode(String className) throws ClassNotFoundException, IOException {
+        int flags = MixinEnvironment.getCurrentEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
+        return MixinService.getService().getBytecodeProvider().getClassNode(className, true, flags);
+    }
+    
+    /**
+     * Get snapshot records for all cached classes which can be snapshotted
+     */
+    static List<ClassInfoSnapshot.Entry> getSnapshotEntries() {
+        List<ClassInfo> infos;
+        synchronized (ClassInfo.cache) {
+            infos = new ArrayList<ClassInfo>(ClassInfo.cache.values());
+        }
+        List<ClassInfoSnapshot.Entry> entries = new ArrayList<ClassInfoSnapshot.Entry>(infos.size());
+        for (ClassInfo info : infos) {
+            ClassInfoSnapshot.Entry entry = info != null ? info.createSnapshotEntry() : null;
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+    
     /**
      * Return a ClassInfo for the specified type descriptor, fetches the
      * ClassInfo from the cache where possible.
@@ -2059,7 +2268,7 @@ public final class ClassInfo {
         } else if (type.getSort() < org.objectweb.asm.Type.ARRAY) {
             return null;
         }
-        return ClassInfo.forName(type.getClassName().replace('.', '/'));
+        return ClassInfo.forName(type.getInternalName());
     }
 
     /**
@@ -2192,6 +2401,16 @@ public final class ClassInfo {
     }
 
     private static ClassInfo getCommonSuperClass(ClassInfo type1, ClassInfo type2, boolean includeInterfaces) {
+        HierarchyCache.PairCache<ClassInfo> commonSuperClasses = HierarchyCache.get().getCommonSuperClasses(includeInterfaces);
+        ClassInfo commonSuperClass = commonSuperClasses.get(type1, type2);
+        if (commonSuperClass == null) {
+            commonSuperClass = ClassInfo.computeCommonSuperClass(type1, type2, includeInterfaces);
+            commonSuperClasses.put(type1, type2, commonSuperClass);
+        }
+        return commonSuperClass;
+    }
+
+    private static ClassInfo computeCommonSuperClass(ClassInfo type1, ClassInfo type2, boolean includeInterfaces) {
         if (type1.hasSuperClass(type2, Traversal.NONE, includeInterfaces)) {
             return type2;
         } else if (type2.hasSuperClass(type1, Traversal.NONE, includeInterfaces)) {
@@ -0,0 +1,729 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipFile;
+
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.service.ITransformer;
+import org.spongepowered.asm.service.ITransformerProvider;
+import org.spongepowered.asm.service.MixinService;
+
+import com.google.common.base.Strings;
+
+/**
+ * Persistent snapshot of the class metadata gathered by {@link ClassInfo}.
+ * When enabled using <tt>mixin.tunable.classInfoSnapshot</tt> the snapshot is
+ * written when the VM exits, and on the next launch metadata for classes is
+ * restored from the snapshot rather than by reading the class bytes. Since the
+ * stored metadata reflects the output of the service's transformers, which
+ * may be configured by any classpath entry, the whole snapshot is discarded if
+ * any jar on the classpath is added, removed or modified, or if the set of
+ * transformers changes. Method frames, which
+ * are only needed for classes whose method bodies are inspected, are not
+ * stored and are read from the class bytes on demand.
+ * 
+ * <p>The snapshot is memory-mapped and only the class index is decoded when
+ * it is opened, individual records are decoded as they are requested. Jar
+ * files are fingerprinted by size and modification time, classes supplied by
+ * directories are never restored since directories cannot be fingerprinted
+ * cheaply. Metadata for classes which are mixins or mixin targets is not
+ * stored.</p>
+ */
+final class ClassInfoSnapshot {
+    
+    /**
+     * Class metadata record
+     */
+    static final class Entry {
+        
+        String name;
+        
+        String superName;
+        
+        String outerName;
+        
+        String signature;
+        
+        String nestHost;
+        
+        int access;
+        
+        int flags;
+        
+        final List<String> interfaces = new ArrayList<String>();
+        
+        List<String> nestMembers;
+        
+        final List<Member> methods = new ArrayList<Member>();
+
+        final List<Member> fields = new ArrayList<Member>();
+        
+        boolean hasFlag(int flag) {
+            return (this.flags & flag) != 0;
+        }
+        
+    }
+    
+    /**
+     * Member metadata record
+     */
+    static final class Member {
+        
+        final String name;
+        
+        final String desc;
+        
+        final int access;
+        
+        final int flags;
+        
+        Member(String name, String desc, int access, int flags) {
+            this.name = name;
+            this.desc = desc;
+            this.access = access;
+            this.flags = flags;
+        }
+        
+        boolean hasFlag(int flag) {
+            return (this.flags & flag) != 0;
+        }
+        
+    }
+    
+    /**
+     * Fingerprint of a classpath entry
+     */
+    static final class Source {
+        
+        final File file;
+        
+        final String path;
+        
+        final long length;
+        
+        final long modified;
+        
+        Source(File file) {
+            this(file, file.getAbsolutePath(), file.length(), file.lastModified());
+        }
+
+        Source(File file, String path, long length, long modified) {
+            this.file = file;
+            this.path = path;
+            this.length = length;
+            this.modified = modified;
+        }
+        
+        boolean isDirectory() {
+            return this.file.isDirectory();
+        }
+        
+        boolean matches(Source other) {
+            return other != null && this.length == other.length && this.modified == other.modified;
+        }
+        
+    }
+    
+    static final int CLASS_INTERFACE = 0x01;
+    static final int CLASS_INNER = 0x02;
+    static final int CLASS_PROBABLY_STATIC = 0x04;
+
+    static final int MEMBER_UNIQUE = 0x01;
+    static final int MEMBER_DECORATED_FINAL = 0x02;
+    static final int MEMBER_DECORATED_MUTABLE = 0x04;
+    static final int MEMBER_ACCESSOR = 0x08;
+    
+    private static final int MAGIC = 0x4D584349;
+    
+    private static final int FORMAT = 1;
+    
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    private static final Object lock = new Object();
+    
+    private static volatile boolean initialised;
+    
+    private static ClassInfoSnapshot instance;
+    
+    /**
+     * Snapshot file
+     */
+    private final File file;
+    
+    /**
+     * Environment key, snapshots written with a different key are discarded
+     */
+    private final String key;
+
+    /**
+     * Current classpath entries, in order
+     */
+    private final List<Source> sources;
+    
+    /**
+     * Directories on the current classpath, classes which are supplied by any
+     * of these are never restored
+     */
+    private final List<File> directories = new ArrayList<File>();
+    
+    /**
+     * Mapped snapshot, null if no usable snapshot was found 
+     */
+    private ByteBuffer buffer;
+    
+    /**
+     * Whether each of the sources in the snapshot is unchanged
+     */
+    private boolean[] validSources;
+    
+    /**
+     * Absolute offsets of strings in the string pool
+     */
+    private int[] stringOffsets;
+
+    /**
+     * Decoded strings
+     */
+    private String[] strings;
+    
+    /**
+     * Class name to source index and absolute record offset
+     */
+    private Map<String, int[]> index;
+
+    /**
+     * Number of classes restored from the snapshot
+     */
+    private int restored;
+    
+    /**
+     * True if classpath entries have changed since the snapshot was written
+     */
+    private boolean changed = true;
+    
+    private ClassInfoSnapshot(File file, String key, List<Source> sources) {
+        this.file = file;
+        this.key = key;
+        this.sources = sources;
+    }
+    
+    /**
+     * Get the active snapshot, opening it on first use if enabled
+     * 
+     * @return the snapshot or null if snapshots are disabled or unavailable
+     */
+    static ClassInfoSnapshot getInstance() {
+        if (!ClassInfoSnapshot.initialised) {
+            synchronized (ClassInfoSnapshot.lock) {
+                if (!ClassInfoSnapshot.initialised) {
+                    ClassInfoSnapshot.instance = ClassInfoSnapshot.open();
+                    ClassInfoSnapshot.initialised = true;
+                }
+            }
+        }
+        return ClassInfoSnapshot.instance;
+    }
+    
+    @SuppressWarnings("deprecation")
+    private static ClassInfoSnapshot open() {
+        String path = MixinEnvironment.getCurrentEnvironment().getOptionValue(Option.CLASSINFO_SNAPSHOT);
+        if (Strings.isNullOrEmpty(path)) {
+            return null;
+        }
+        
+        URL[] classPath = MixinService.getService().getClassProvider().getClassPath();
+        List<Source> sources = classPath != null ? ClassInfoSnapshot.fingerprint(classPath) : null;
+        if (sources == null || sources.isEmpty()) {
+            ClassInfoSnapshot.logger.warn("Class metadata snapshot is not available, the classpath of service {} cannot be fingerprinted",
+                    MixinService.getService().getName());
+            return null;
+        }
+        
+        String key = String.format("%s;%s;%s;%s;%08x", MixinBootstrap.VERSION, MixinService.getService().getName(),
+                System.getProperty("java.vendor"), System.getProperty("java.version"), ClassInfoSnapshot.getTransformersHash());
+        final ClassInfoSnapshot snapshot = new ClassInfoSnapshot(new File(path), key, sources);
+        snapshot.load();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Mixin ClassInfo Snapshot Writer") {
+            @Override
+            public void run() {
+                snapshot.save();
+            }
+        });
+        
+        return snapshot;
+    }
+
+    /**
+     * Hash the names of the transformers which are applied when class bytes
+     * are read, so that the snapshot is discarded if they change
+     */
+    private static int getTransformersHash() {
+        ITransformerProvider transformerProvider = MixinService.getService().getTransformerProvider();
+        if (transformerProvider == null) {
+            return 0;
+        }
+        List<String> names = new ArrayList<String>();
+        try {
+            for (ITransformer transformer : transformerProvider.getDelegatedTransformers()) {
+                names.add(transformer.getName());
+            }
+        } catch (RuntimeException ex) {
+            // Transformers cannot be enumerated in this environment
+        }
+        return names.hashCode();
+    }
+
+    private static List<Source> fingerprint(URL[] classPath) {
+        List<Source> sources = new ArrayList<Source>();
+        for (URL url : classPath) {
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+            try {
+                File file = new File(url.toURI());
+                if (file.exists()) {
+                    sources.add(new Source(file));
+                }
+            } catch (URISyntaxException ex) {
+                return null;
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+        return sources;
+    }
+    
+    /**
+     * Restore the metadata for the specified class from the snapshot
+     * 
+     * @param className Binary name of the class
+     * @return restored metadata, or null if the class is not in the snapshot
+     *      or the snapshot entry is no longer valid
+     */
+    synchronized ClassInfo restore(String className) {
+        if (this.index == null) {
+            return null;
+        }
+        
+        int[] location = this.index.get(className);
+        if (location == null || !this.isValid(className, location[0])) {
+            return null;
+        }
+        
+        try {
+            ClassInfo info = new ClassInfo(this.readEntry(location[1]));
+            this.restored++;
+            return info;
+        } catch (RuntimeException ex) {
+            ClassInfoSnapshot.logger.warn("Class metadata snapshot {} is corrupt and will be ignored: {} {}", this.file,
+                    ex.getClass().getName(), ex.getMessage());
+            this.index = null;
+            this.buffer = null;
+            return null;
+        }
+    }
+    
+    private boolean isValid(String className, int source) {
+        if (source < -1 || (source >= 0 && !this.validSources[source])) {
+            return false;
+        }
+        for (File directory : this.directories) {
+            if (new File(directory, className + ".class").isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void load() {
+        for (Source source : this.sources) {
+            if (source.isDirectory()) {
+                this.directories.add(source.file);
+            }
+        }
+        
+        if (!this.file.isFile()) {
+            return;
+        }
+        
+        try {
+            RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                this.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                raf.close();
+            }
+        } catch (IOException ex) {
+            ClassInfoSnapshot.logger.warn("Could not read class metadata snapshot {}: {}", this.file, ex.getMessage());
+            this.index = null;
+        } catch (RuntimeException ex) {
+            ClassInfoSnapshot.logger.warn("Class metadata snapshot {} is corrupt and will be ignored: {} {}", this.file,
+                    ex.getClass().getName(), ex.getMessage());
+            this.index = null;
+        }
+        
+        if (this.index == null) {
+            this.buffer = null;
+        }
+    }
+
+    private void read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != ClassInfoSnapshot.MAGIC || buffer.getInt() != ClassInfoSnapshot.FORMAT) {
+            ClassInfoSnapshot.logger.debug("Discarding class metadata snapshot {} with unsupported format", this.file);
+            return;
+        }
+        if (!this.key.equals(ClassInfoSnapshot.getString(buffer))) {
+            ClassInfoSnapshot.logger.debug("Discarding class metadata snapshot {} written by a different environment", this.file);
+            return;
+        }
+        
+        Map<String, Source> current = new HashMap<String, Source>();
+        for (Source source : this.sources) {
+            current.put(source.path, source);
+        }
+
+        int sourceCount = buffer.getInt();
+        boolean[] validSources = new boolean[sourceCount];
+        Set<String> unchanged = new HashSet<String>();
+        int changedSources = 0;
+        for (int i = 0; i < sourceCount; i++) {
+            String path = ClassInfoSnapshot.getString(buffer);
+            Source recorded = new Source(null, path, buffer.getLong(), buffer.getLong());
+            Source source = current.get(path);
+            validSources[i] = source != null && !source.isDirectory() && source.matches(recorded);
+            if (validSources[i]) {
+                unchanged.add(path);
+            } else if (source == null || !source.isDirectory()) {
+                changedSources++;
+            }
+        }
+        
+        for (Source source : this.sources) {
+            if (!source.isDirectory() && !unchanged.contains(source.path)) {
+                changedSources++;
+            }
+        }
+        if (changedSources > 0) {
+            ClassInfoSnapshot.logger.debug("Discarding class metadata snapshot {}, {} classpath entries changed", this.file, changedSources);
+            return;
+        }
+        
+        int stringCount = buffer.getInt();
+        int[] stringOffsets = new int[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            stringOffsets[i] = buffer.getInt();
+        }
+        
+        int classCount = buffer.getInt();
+        int[] classes = new int[classCount * 3];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = buffer.getInt();
+        }
+        
+        int base = buffer.position();
+        for (int i = 0; i < stringCount; i++) {
+            stringOffsets[i] += base;
+        }
+        
+        this.buffer = buffer;
+        this.validSources = validSources;
+        this.stringOffsets = stringOffsets;
+        this.strings = new String[stringCount];
+        
+        Map<String, int[]> index = new HashMap<String, int[]>(classCount * 2);
+        for (int i = 0; i < classes.length; i += 3) {
+            index.put(this.getString(classes[i]), new int[] { classes[i + 1], base + classes[i + 2] });
+        }
+        this.index = index;
+        this.changed = false;
+        
+        ClassInfoSnapshot.logger.debug("Opened class metadata snapshot {} with {} classes", this.file, classCount);
+    }
+    
+    private Entry readEntry(int offset) {
+        ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(offset);
+        
+        Entry entry = new Entry();
+        entry.name = this.getString(buffer.getInt());
+        entry.superName = this.getString(buffer.getInt());
+        entry.outerName = this.getString(buffer.getInt());
+        entry.signature = this.getString(buffer.getInt());
+        entry.nestHost = this.getString(buffer.getInt());
+        entry.access = buffer.getInt();
+        entry.flags = buffer.getInt();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            entry.interfaces.add(this.getString(buffer.getInt()));
+        }
+        int nestMemberCount = buffer.getInt();
+        if (nestMemberCount >= 0) {
+            entry.nestMembers = new ArrayList<String>(nestMemberCount);
+            for (; nestMemberCount > 0; nestMemberCount--) {
+                entry.nestMembers.add(this.getString(buffer.getInt()));
+            }
+        }
+        this.readMembers(buffer, entry.methods);
+        this.readMembers(buffer, entry.fields);
+        return entry;
+    }
+
+    private void readMembers(ByteBuffer buffer, List<Member> members) {
+        for (int count = buffer.getInt(); count > 0; count--) {
+            members.add(new Member(this.getString(buffer.getInt()), this.getString(buffer.getInt()), buffer.getInt(), buffer.getInt()));
+        }
+    }
+    
+    private String getString(int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        String value = this.strings[ref];
+        if (value == null) {
+            ByteBuffer buffer = this.buffer.duplicate();
+            buffer.position(this.stringOffsets[ref]);
+            value = this.strings[ref] = ClassInfoSnapshot.getString(buffer);
+        }
+        return value;
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, ClassInfoSnapshot.UTF_8);
+    }
+    
+    /**
+     * Write the metadata currently held by {@link ClassInfo} to the snapshot
+     * file if it has changed since the snapshot was read
+     */
+    void save() {
+        List<Entry> entries = ClassInfo.getSnapshotEntries();
+        if (!this.isStale(entries)) {
+            ClassInfoSnapshot.logger.debug("Class metadata snapshot {} is up to date, restored {} classes", this.file, this.restored);
+            return;
+        }
+        
+        File tempFile = new File(this.file.getPath() + ".tmp");
+        try {
+            byte[] bytes = this.write(entries);
+            File parent = this.file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            FileOutputStream out = new FileOutputStream(tempFile);
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+            // The previous snapshot may still be mapped, in which case some
+            // platforms refuse to replace it and the old snapshot is kept
+            if (!(this.file.delete() || !this.file.exists()) || !tempFile.renameTo(this.file)) {
+                ClassInfoSnapshot.logger.debug("Could not replace class metadata snapshot {}", this.file);
+                tempFile.delete();
+            }
+        } catch (IOException ex) {
+            ClassInfoSnapshot.logger.error("Could not write class metadata snapshot {}: {}", this.file, ex.getMessage());
+            tempFile.delete();
+        }
+    }
+    
+    private synchronized boolean isStale(List<Entry> entries) {
+        if (this.changed || this.index == null) {
+            return true;
+        }
+        for (Entry entry : entries) {
+            if (!this.index.containsKey(entry.name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private byte[] write(List<Entry> entries) throws IOException {
+        List<ZipFile> jars = new ArrayList<ZipFile>();
+        for (Source source : this.sources) {
+            jars.add(source.isDirectory() ? null : new ZipFile(source.file));
+        }
+        
+        ClassLoader runtime = ClassLoader.getSystemClassLoader().getParent();
+        Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(entries.size() * 256);
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream(entries.size() * 12);
+        DataOutputStream classes = new DataOutputStream(classBytes);
+        int classCount = 0;
+        
+        try {
+            for (Entry entry : entries) {
+                // Classes which cannot be restored are indexed without a
+                // record so that they do not cause the snapshot to be stale
+                int source = this.locate(entry.name, jars, runtime);
+                classes.writeInt(ClassInfoSnapshot.ref(strings, entry.name));
+                classes.writeInt(source);
+                classes.writeInt(source < -1 ? -1 : records.size());
+                classCount++;
+                if (source < -1) {
+                    continue;
+                }
+
+                records.writeInt(ClassInfoSnapshot.ref(strings, entry.name));
+                records.writeInt(ClassInfoSnapshot.ref(strings, entry.superName));
+                records.writeInt(ClassInfoSnapshot.ref(strings, entry.outerName));
+                records.writeInt(ClassInfoSnapshot.ref(strings, entry.signature));
+                records.writeInt(ClassInfoSnapshot.ref(strings, entry.nestHost));
+                records.writeInt(entry.access);
+                records.writeInt(entry.flags);
+                records.writeInt(entry.interfaces.size());
+                for (String iface : entry.interfaces) {
+                    records.writeInt(ClassInfoSnapshot.ref(strings, iface));
+                }
+                records.writeInt(entry.nestMembers != null ? entry.nestMembers.size() : -1);
+                if (entry.nestMembers != null) {
+                    for (String nestMember : entry.nestMembers) {
+                        records.writeInt(ClassInfoSnapshot.ref(strings, nestMember));
+                    }
+                }
+                ClassInfoSnapshot.writeMembers(records, strings, entry.methods);
+                ClassInfoSnapshot.writeMembers(records, strings, entry.fields);
+            }
+        } finally {
+            for (ZipFile jar : jars) {
+                if (jar != null) {
+                    jar.close();
+                }
+            }
+        }
+        
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream(strings.size() * 32);
+        DataOutputStream pool = new DataOutputStream(stringBytes);
+        int[] stringOffsets = new int[strings.size()];
+        int stringIndex = 0;
+        for (String value : strings.keySet()) {
+            stringOffsets[stringIndex++] = records.size() + pool.size();
+            ClassInfoSnapshot.writeString(pool, value);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(recordBytes.size() + stringBytes.size() + classBytes.size() + 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(ClassInfoSnapshot.MAGIC);
+        out.writeInt(ClassInfoSnapshot.FORMAT);
+        ClassInfoSnapshot.writeString(out, this.key);
+        out.writeInt(this.sources.size());
+        for (Source source : this.sources) {
+            ClassInfoSnapshot.writeString(out, source.path);
+            out.writeLong(source.length);
+            out.writeLong(source.modified);
+        }
+        out.writeInt(stringOffsets.length);
+        for (int offset : stringOffsets) {
+            out.writeInt(offset);
+        }
+        out.writeInt(classCount);
+        classBytes.writeTo(out);
+        recordBytes.writeTo(out);
+        stringBytes.writeTo(out);
+        out.flush();
+        
+        ClassInfoSnapshot.logger.debug("Writing class metadata snapshot {} with {} classes", this.file, classCount);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Find the index of the classpath entry which supplies the specified
+     * class, returns -1 if the class is supplied by the runtime or -2 if the
+     * class is supplied by a directory or cannot be located, since it cannot
+     * be invalidated in that case
+     */
+    private int locate(String className, List<ZipFile> jars, ClassLoader runtime) {
+        String resource = className + ".class";
+        for (int i = 0; i < jars.size(); i++) {
+            ZipFile jar = jars.get(i);
+            if (jar == null) {
+                if (new File(this.sources.get(i).file, resource).isFile()) {
+                    return -2;
+                }
+            } else if (jar.getEntry(resource) != null) {
+                return i;
+            }
+        }
+        return runtime != null && runtime.getResource(resource) != null ? -1 : -2;
+    }
+
+    private static void writeMembers(DataOutputStream out, Map<String, Integer> strings, List<Member> members) throws IOException {
+        out.writeInt(members.size());
+        for (Member member : members) {
+            out.writeInt(ClassInfoSnapshot.ref(strings, member.name));
+            out.writeInt(ClassInfoSnapshot.ref(strings, member.desc));
+            out.writeInt(member.access);
+            out.writeInt(member.flags);
+        }
+    }
+    
+    private static int ref(Map<String, Integer> strings, String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer ref = strings.get(value);
+        if (ref == null) {
+            ref = Integer.valueOf(strings.size());
+            strings.put(value, ref);
+        }
+        return ref.intValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(ClassInfoSnapshot.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+}
@@ -24,7 +24,10 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.spongepowered.asm.logging.ILogger;
@@ -143,6 +146,32 @@ public class Config {
 //        return Config.create(configFile, outer, null);
 //    }
     
+    /**
+     * Read the specified config resources concurrently ahead of creating them
+     * with {@link #create}. Configs which were already created are skipped,
+     * as are null or empty names.
+     * 
+     * @param configFiles config resources
+     */
+    public static void preload(Collection<String> configFiles) {
+        List<String> pending = new ArrayList<String>();
+        for (String configFile : configFiles) {
+            if (!Strings.isNullOrEmpty(configFile) && !Config.allConfigs.containsKey(configFile)) {
+                pending.add(configFile);
+            }
+        }
+        MixinConfig.preload(pending);
+    }
+    
+    /**
+     * Discard configs read by {@link #preload} which were not subsequently
+     * created, callers should invoke this once the batch of configs passed to
+     * {@link #preload} has been created.
+     */
+    public static void clearPreloaded() {
+        MixinConfig.clearPreloaded();
+    }
+    
     /**
      * Factory method, create a config from the specified config file and fail
      * over to the specified environment if no selector is present in the config
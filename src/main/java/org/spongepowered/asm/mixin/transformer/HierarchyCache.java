@@ -0,0 +1,115 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Memoised answers to subtype and common-supertype questions about the class
+ * hierarchy. The verifier, the class writer's frame computation and the
+ * injectors all ask the same questions about the same pairs of types many
+ * times, and answering them otherwise involves walking the hierarchy each
+ * time.
+ * 
+ * <p>Answers are only cached for lookups which do not traverse mixins, and
+ * are discarded wholesale whenever the hierarchy changes, which happens when
+ * mixins are registered against a target or add interfaces to it. Answers
+ * computed concurrently with an invalidation are stored in the discarded
+ * generation and are therefore never observed.</p>
+ */
+final class HierarchyCache {
+    
+    /**
+     * Cache of values keyed by a pair of classes
+     * 
+     * @param <V> value type
+     */
+    static final class PairCache<V> {
+        
+        private final ConcurrentMap<ClassInfo, ConcurrentMap<ClassInfo, V>> values = new ConcurrentHashMap<ClassInfo, ConcurrentMap<ClassInfo, V>>();
+        
+        V get(ClassInfo first, ClassInfo second) {
+            ConcurrentMap<ClassInfo, V> inner = this.values.get(first);
+            return inner != null ? inner.get(second) : null;
+        }
+        
+        void put(ClassInfo first, ClassInfo second, V value) {
+            ConcurrentMap<ClassInfo, V> inner = this.values.get(first);
+            if (inner == null) {
+                inner = new ConcurrentHashMap<ClassInfo, V>();
+                ConcurrentMap<ClassInfo, V> existing = this.values.putIfAbsent(first, inner);
+                if (existing != null) {
+                    inner = existing;
+                }
+            }
+            inner.put(second, value);
+        }
+        
+    }
+    
+    /**
+     * One generation of cached answers
+     */
+    static final class Generation {
+        
+        final PairCache<Boolean> superClasses = new PairCache<Boolean>();
+        
+        final PairCache<Boolean> superClassesOrInterfaces = new PairCache<Boolean>();
+        
+        final PairCache<ClassInfo> commonSuperClasses = new PairCache<ClassInfo>();
+        
+        final PairCache<ClassInfo> commonSuperClassesOrInterfaces = new PairCache<ClassInfo>();
+        
+        PairCache<Boolean> getSuperClasses(boolean includeInterfaces) {
+            return includeInterfaces ? this.superClassesOrInterfaces : this.superClasses;
+        }
+        
+        PairCache<ClassInfo> getCommonSuperClasses(boolean includeInterfaces) {
+            return includeInterfaces ? this.commonSuperClassesOrInterfaces : this.commonSuperClasses;
+        }
+        
+    }
+    
+    private static volatile Generation current = new Generation();
+    
+    private HierarchyCache() {
+    }
+    
+    /**
+     * Get the current generation of answers
+     */
+    static Generation get() {
+        return HierarchyCache.current;
+    }
+    
+    /**
+     * Discard all cached answers, called when the hierarchy changes
+     */
+    static void invalidate() {
+        HierarchyCache.current = new Generation();
+    }
+
+}
@@ -25,6 +25,7 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.util.List;
+import java.util.Map;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -102,6 +103,24 @@ public interface IMixinTransformer {
      */
     public abstract boolean transformClass(MixinEnvironment environment, String name, ClassNode classNode);
     
+    /**
+     * Apply mixins and postprocessors to a batch of classes. Bytecode for the
+     * supplied classes is read in parallel and metadata for every class in
+     * the batch is registered before any mixins are applied, so that lookups
+     * between members of the batch do not need to go back to the service.
+     * Classes are then transformed in hierarchy order, superclasses and
+     * interfaces before the classes which extend them. An error in one class
+     * does not prevent the remaining classes from being processed, the error
+     * is returned in the result for that class instead.
+     * 
+     * @param environment Current environment
+     * @param classes Map of class transformed names to class bytecode
+     * @return Results keyed by class transformed name. Classes which could
+     *      not be read appear first, followed by the remaining classes in the
+     *      order in which they were transformed
+     */
+    public abstract Map<String, TransformResult> transformClasses(MixinEnvironment environment, Map<String, byte[]> classes);
+    
     /**
      * Generate the specified mixin-synthetic class
      * 
@@ -0,0 +1,274 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.CodeSizeEvaluator;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.struct.Target;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants;
+import org.spongepowered.asm.util.asm.ASM;
+
+/**
+ * Measures target methods after injection and, for targets which have grown
+ * beyond the configured threshold, moves injection glue into synthetic helper
+ * methods in the target class. HotSpot will not JIT-compile methods larger
+ * than {@link #HUGE_METHOD_LIMIT} bytes, so targets which are still larger
+ * than this once outlining is complete are reported.
+ * 
+ * <p>Currently the glue which is outlined is the construction of
+ * {@link CallbackInfo} instances, including capture of the return value for
+ * callbacks at <tt>RETURN</tt>. Argument loads, local capture and stores
+ * around redirected and modified calls operate on the target's own frame and
+ * cannot be moved out of the target.</p>
+ */
+final class MethodSizeGuard {
+
+    /**
+     * Size in bytes above which HotSpot will not compile a method, unless
+     * <tt>-XX:-DontCompileHugeMethods</tt> is specified
+     */
+    static final int HUGE_METHOD_LIMIT = 8000;
+    
+    /**
+     * Prefix for generated helper methods
+     */
+    private static final String HELPER_PREFIX = "callbackInfo$";
+
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    private static final String CALLBACK_INFO = CallbackInfo.getCallInfoClassName(Type.VOID_TYPE);
+    
+    private static final String CALLBACK_INFO_RETURNABLE = CallbackInfo.getCallInfoClassName(Type.INT_TYPE);
+    
+    private final TargetClassContext context;
+    
+    private final ClassNode classNode;
+    
+    /**
+     * Size above which glue is outlined from targets
+     */
+    private final int threshold;
+    
+    /**
+     * Generated helpers, keyed by the CallbackInfo they construct
+     */
+    private final Map<String, MethodNode> helpers = new HashMap<String, MethodNode>();
+    
+    private int nextHelperIndex;
+    
+    MethodSizeGuard(TargetClassContext context, int threshold) {
+        this.context = context;
+        this.classNode = context.getClassNode();
+        this.threshold = threshold;
+    }
+    
+    /**
+     * Measure the supplied targets and outline glue from any targets which
+     * exceed the threshold
+     * 
+     * @param targets Targets to check
+     */
+    void check(Collection<Target> targets) {
+        boolean canOutline = !this.context.getClassInfo().isInterface();
+        for (Target target : targets) {
+            int size = MethodSizeGuard.getCodeSize(target.method);
+            if (size <= this.threshold) {
+                continue;
+            }
+            
+            int outlined = canOutline ? this.outlineCallbackInfos(target.method.instructions) : 0;
+            if (outlined > 0) {
+                int newSize = MethodSizeGuard.getCodeSize(target.method);
+                MethodSizeGuard.logger.debug("Outlined {} CallbackInfo allocations from {} reducing size from {} to {} bytes",
+                        outlined, target, size, newSize);
+                size = newSize;
+            }
+            
+            if (size > MethodSizeGuard.HUGE_METHOD_LIMIT) {
+                MethodSizeGuard.logger.warn("Target method {} is {} bytes after injection and will not be compiled by the JIT, which "
+                        + "ignores methods larger than {} bytes", target, size, MethodSizeGuard.HUGE_METHOD_LIMIT);
+            }
+        }
+    }
+
+    /**
+     * Get the size of the supplied method's code, the size is an upper bound
+     * since the final size of some instructions depends on the constant pool
+     * and on jump offsets
+     * 
+     * @param method Method to measure
+     * @return maximum code size in bytes
+     */
+    static int getCodeSize(MethodNode method) {
+        CodeSizeEvaluator evaluator = new CodeSizeEvaluator(null);
+        method.instructions.accept(evaluator);
+        return evaluator.getMaxSize();
+    }
+
+    /**
+     * Replace each <tt>NEW CallbackInfo(id, cancellable[, value])</tt>
+     * sequence in the supplied instructions with a call to a static helper
+     * which constructs the same CallbackInfo. Where the value passed to a
+     * returnable CallbackInfo is stored in a local just to be loaded again,
+     * and the local is then overwritten with the CallbackInfo, the value is
+     * passed straight to the helper instead.
+     * 
+     * @param insns Instructions to process
+     * @return number of sequences replaced
+     */
+    private int outlineCallbackInfos(InsnList insns) {
+        int count = 0;
+        for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() != Opcodes.INVOKESPECIAL || !Constants.CTOR.equals(((MethodInsnNode)insn).name)) {
+                continue;
+            }
+            
+            MethodInsnNode ctor = (MethodInsnNode)insn;
+            if (!MethodSizeGuard.CALLBACK_INFO.equals(ctor.owner) && !MethodSizeGuard.CALLBACK_INFO_RETURNABLE.equals(ctor.owner)) {
+                continue;
+            }
+            
+            Type[] args = Type.getArgumentTypes(ctor.desc);
+            if (args.length < 2 || args.length > 3 || !Constants.STRING_DESC.equals(args[0].getDescriptor())
+                    || !Type.BOOLEAN_TYPE.equals(args[1])) {
+                continue;
+            }
+            
+            AbstractInsnNode prev = ctor.getPrevious();
+            VarInsnNode value = null;
+            if (args.length == 3) {
+                if (!(prev instanceof VarInsnNode) || prev.getOpcode() != args[2].getOpcode(Opcodes.ILOAD)) {
+                    continue;
+                }
+                value = (VarInsnNode)prev;
+                prev = prev.getPrevious();
+            }
+            
+            AbstractInsnNode cancellable = prev;
+            AbstractInsnNode id = cancellable != null ? cancellable.getPrevious() : null;
+            AbstractInsnNode dup = id != null ? id.getPrevious() : null;
+            AbstractInsnNode alloc = dup != null ? dup.getPrevious() : null;
+            if (cancellable == null || (cancellable.getOpcode() != Opcodes.ICONST_0 && cancellable.getOpcode() != Opcodes.ICONST_1)
+                    || !(id instanceof LdcInsnNode) || !(((LdcInsnNode)id).cst instanceof String)
+                    || dup == null || dup.getOpcode() != Opcodes.DUP || alloc == null || alloc.getOpcode() != Opcodes.NEW
+                    || !ctor.owner.equals(((TypeInsnNode)alloc).desc)) {
+                continue;
+            }
+            
+            MethodNode helper = this.getHelper(ctor, (String)((LdcInsnNode)id).cst, cancellable.getOpcode() == Opcodes.ICONST_1,
+                    value != null ? args[2] : null);
+            insns.remove(alloc);
+            insns.remove(dup);
+            insns.remove(id);
+            insns.remove(cancellable);
+            MethodInsnNode call = new MethodInsnNode(Opcodes.INVOKESTATIC, this.classNode.name, helper.name, helper.desc, false);
+            insns.set(ctor, call);
+            insn = call;
+            
+            // DUP; xSTORE n; xLOAD n; <helper>; ASTORE n -> DUP; <helper>; ASTORE n
+            AbstractInsnNode store = value != null ? value.getPrevious() : null;
+            AbstractInsnNode next = call.getNext();
+            if (store instanceof VarInsnNode && store.getOpcode() == args[2].getOpcode(Opcodes.ISTORE) && ((VarInsnNode)store).var == value.var
+                    && next instanceof VarInsnNode && next.getOpcode() == Opcodes.ASTORE && ((VarInsnNode)next).var == value.var) {
+                insns.remove(store);
+                insns.remove(value);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get (generating if necessary) the helper which constructs a CallbackInfo
+     * with the specified id
+     */
+    private MethodNode getHelper(MethodInsnNode ctor, String id, boolean cancellable, Type valueType) {
+        String key = ctor.owner + ctor.desc + cancellable + id;
+        MethodNode method = this.helpers.get(key);
+        if (method != null) {
+            return method;
+        }
+        
+        String desc = "(" + (valueType != null ? valueType.getDescriptor() : "") + ")L" + ctor.owner + ";";
+        method = new MethodNode(ASM.API_VERSION, Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC,
+                this.getHelperName(), desc, null, null);
+        method.instructions.add(new TypeInsnNode(Opcodes.NEW, ctor.owner));
+        method.instructions.add(new InsnNode(Opcodes.DUP));
+        method.instructions.add(new LdcInsnNode(id));
+        method.instructions.add(new InsnNode(cancellable ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
+        if (valueType != null) {
+            method.instructions.add(new VarInsnNode(valueType.getOpcode(Opcodes.ILOAD), 0));
+        }
+        method.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, ctor.owner, Constants.CTOR, ctor.desc, false));
+        method.instructions.add(new InsnNode(Opcodes.ARETURN));
+        int valueSize = valueType != null ? valueType.getSize() : 0;
+        method.maxLocals = valueSize;
+        method.maxStack = 4 + valueSize;
+        
+        this.classNode.methods.add(method);
+        this.context.getClassInfo().addMethod(method);
+        
+        this.helpers.put(key, method);
+        return method;
+    }
+    
+    private String getHelperName() {
+        String name;
+        do {
+            name = String.format("%s%03x", MethodSizeGuard.HELPER_PREFIX, this.nextHelperIndex++);
+        } while (this.hasMethod(name));
+        return name;
+    }
+    
+    private boolean hasMethod(String name) {
+        for (MethodNode method : this.classNode.methods) {
+            if (method.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -58,14 +58,17 @@ import org.spongepowered.asm.mixin.transformer.struct.Initialiser;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
 import org.spongepowered.asm.mixin.transformer.throwables.MixinApplicatorException;
 import org.spongepowered.asm.service.IMixinAuditTrail;
+import org.spongepowered.asm.service.IMixinMetrics.Metric;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.ConstraintParser;
 import org.spongepowered.asm.util.ConstraintParser.Constraint;
+import org.spongepowered.asm.util.perf.Metrics;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
+import org.spongepowered.asm.util.perf.Trace;
 import org.spongepowered.asm.util.throwables.ConstraintViolationException;
 import org.spongepowered.asm.util.throwables.InvalidConstraintException;
 
@@ -198,7 +201,9 @@ class MixinApplicatorStandard {
             MixinInfo mixin = iter.next();
             try {
                 this.logger.log(mixin.getLoggingLevel(), "Mixing {} from {} into {}", mixin.getName(), mixin.getParent(), this.targetName);
+                long traceStart = Trace.start();
                 mixinContexts.add(mixin.createContextFor(this.context));
+                Trace.end(Trace.MIXIN, "context", traceStart, "mixin", mixin.getClassName());
                 if (this.auditTrail != null) {
                     this.auditTrail.onApply(this.targetName, mixin.toString());
                 }
@@ -218,8 +223,10 @@ class MixinApplicatorStandard {
             IActivity activity = this.activities.begin("PreApply Phase");
             IActivity preApplyActivity = this.activities.begin("Mixin");
             for (MixinTargetContext context : mixinContexts) {
-                preApplyActivity.next(context.toString());
+                preApplyActivity.next("%s", context);
+                long traceStart = Trace.start();
                 (current = context).preApply(this.targetName, this.targetClass);
+                Trace.end(Trace.MIXIN, "preApply", traceStart, "mixin", context.getClassName());
             }
             preApplyActivity.end();
             
@@ -239,7 +246,7 @@ class MixinApplicatorStandard {
                 for (Integer injectorOrder : orders) {
                     for (Iterator<MixinTargetContext> iter = mixinContexts.iterator(); iter.hasNext();) {
                         current = iter.next();
-                        applyActivity.next(current.toString());
+                        applyActivity.next("%s", current);
                         try {
                             this.applyMixin(current, pass, injectorOrder.intValue());
                         } catch (InvalidMixinException ex) {
@@ -259,9 +266,11 @@ class MixinApplicatorStandard {
             IActivity postApplyActivity = this.activities.begin("Mixin");
             for (Iterator<MixinTargetContext> iter = mixinContexts.iterator(); iter.hasNext();) {
                 current = iter.next();
-                postApplyActivity.next(current.toString());
+                postApplyActivity.next("%s", current);
                 try {
+                    long traceStart = Trace.start();
                     current.postApply(this.targetName, this.targetClass);
+                    Trace.end(Trace.MIXIN, "postApply", traceStart, "mixin", current.getClassName());
                 } catch (InvalidMixinException ex) {
                     if (current.isRequired()) {
                         throw ex;
@@ -289,6 +298,9 @@ class MixinApplicatorStandard {
      * @param mixin Mixin to apply
      */
     protected final void applyMixin(MixinTargetContext mixin, ApplicatorPass pass, int injectorOrder) {
+        boolean timed = this.context.isRecordingMixinTimes();
+        long start = timed ? System.nanoTime() : Metrics.start();
+        long traceStart = Trace.start();
         IActivity activity = this.activities.begin("Apply");
         switch (pass) {
             case MAIN:
@@ -333,6 +345,11 @@ class MixinApplicatorStandard {
                 throw new IllegalStateException("Invalid pass specified " + pass);
         }
         activity.end();
+        if (timed) {
+            this.context.addMixinTime(mixin.getClassName(), System.nanoTime() - start);
+        }
+        Metrics.recordTime(mixin.getClassName(), null, this.targetName, Metric.APPLY_TIME, start);
+        Trace.end(Trace.MIXIN, pass.name().toLowerCase(Locale.ROOT), traceStart, "mixin", mixin.getClassName());
     }
 
     protected void applySignature(MixinTargetContext mixin) {
@@ -0,0 +1,343 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.service.IClassProvider;
+import org.spongepowered.asm.util.Constants;
+
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Force-loads unhandled mixin targets on behalf of
+ * {@link MixinProcessor#audit}, optionally using a bounded pool of worker
+ * threads, and records the time taken to load each target, to apply its
+ * mixins, and to apply each individual mixin. A machine-readable (json) report
+ * of the recorded timings, in nanoseconds, is written to the debug output
+ * directory once the audit completes.
+ * 
+ * <p>When more than one thread is used, targets are loaded in waves ordered by
+ * their depth in the class hierarchy (where the hierarchy can be resolved) so
+ * that superclasses are always loaded before their subclasses are scheduled.
+ * Classes are loaded <em>without</em> being initialised in this mode, since
+ * running static initialisers concurrently on arbitrary classes is a common
+ * source of class-loading deadlocks, and initialisation is not required for
+ * mixins to be applied.</p>
+ */
+final class MixinAudit {
+    
+    /**
+     * Timings for a single audited target 
+     */
+    static final class TargetTiming {
+        
+        final String name;
+        
+        final int depth;
+        
+        long loadTime;
+        
+        long applyTime;
+        
+        List<String> mixins;
+        
+        String error;
+        
+        TargetTiming(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+        
+    }
+    
+    /**
+     * Aggregate statistics for a single mixin
+     */
+    static final class MixinTiming {
+        
+        final String name;
+        
+        int targets;
+        
+        long applyTime;
+        
+        MixinTiming(String name) {
+            this.name = name;
+        }
+        
+    }
+    
+    /**
+     * Report root, serialised to json 
+     */
+    static final class Report {
+        
+        int threads;
+        
+        long totalTime;
+        
+        final List<TargetTiming> targets = new ArrayList<TargetTiming>();
+        
+        final Collection<MixinTiming> mixins;
+        
+        Report(int threads, long totalTime, Collection<MixinTiming> mixins) {
+            this.threads = threads;
+            this.totalTime = totalTime;
+            this.mixins = mixins;
+        }
+        
+    }
+
+    private static final String AUDIT_DIR = "audit";
+    private static final String AUDIT_REPORT_FILENAME = "mixin_audit_report.json";
+    
+    private final ILogger logger;
+    
+    private final IClassProvider classProvider;
+    
+    private final int threads;
+    
+    /**
+     * Time spent applying mixins to each target, populated by the processor
+     * whilst the audit is in progress 
+     */
+    private final Map<String, Long> applyTimes = new ConcurrentHashMap<String, Long>();
+    
+    /**
+     * Total time spent applying each mixin, populated by the processor whilst
+     * the audit is in progress
+     */
+    private final Map<String, Long> mixinApplyTimes = new HashMap<String, Long>();
+    
+    MixinAudit(MixinEnvironment environment, IClassProvider classProvider, ILogger logger) {
+        this.classProvider = classProvider;
+        this.logger = logger;
+        this.threads = MixinAudit.getThreads(environment);
+    }
+    
+    /**
+     * Callback from the processor when mixins have been applied to a target
+     * during the audit
+     * 
+     * @param name Target class name
+     * @param time Time taken to apply mixins, in nanoseconds
+     * @param mixinTimes Time taken to apply each mixin, in nanoseconds
+     */
+    void onApplied(String name, long time, Map<String, Long> mixinTimes) {
+        this.applyTimes.put(name, Long.valueOf(time));
+        synchronized (this.mixinApplyTimes) {
+            for (Entry<String, Long> mixinTime : mixinTimes.entrySet()) {
+                Long total = this.mixinApplyTimes.get(mixinTime.getKey());
+                long mixinApplyTime = mixinTime.getValue().longValue();
+                this.mixinApplyTimes.put(mixinTime.getKey(), Long.valueOf(total != null ? total.longValue() + mixinApplyTime : mixinApplyTime));
+            }
+        }
+    }
+
+    /**
+     * Force-load the supplied targets and write the audit report
+     * 
+     * @param unhandled Targets to load
+     */
+    void run(Set<String> unhandled) {
+        long start = System.nanoTime();
+        Map<Integer, List<TargetTiming>> waves = new TreeMap<Integer, List<TargetTiming>>();
+        for (String target : unhandled) {
+            int depth = MixinAudit.getDepth(target);
+            List<TargetTiming> wave = waves.get(depth);
+            if (wave == null) {
+                waves.put(depth, wave = new ArrayList<TargetTiming>());
+            }
+            wave.add(new TargetTiming(target, depth));
+        }
+        
+        if (this.threads > 1) {
+            this.logger.info("Force-loading {} classes in {} waves using {} threads", unhandled.size(), waves.size(), this.threads);
+            this.loadParallel(waves.values());
+        } else {
+            for (List<TargetTiming> wave : waves.values()) {
+                for (TargetTiming target : wave) {
+                    this.load(target, true);
+                }
+            }
+        }
+        
+        this.writeReport(waves.values(), System.nanoTime() - start);
+    }
+
+    private void loadParallel(Collection<List<TargetTiming>> waves) {
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            private int index;
+            
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Mixin Audit #" + (++this.index));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        
+        try {
+            for (List<TargetTiming> wave : waves) {
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(wave.size());
+                for (final TargetTiming target : wave) {
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            MixinAudit.this.load(target, false);
+                            return null;
+                        }
+                    });
+                }
+                // invokeAll blocks until the wave is complete
+                executor.invokeAll(tasks);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.logger.error("Audit was interrupted, not all classes were loaded", ex);
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void load(TargetTiming target, boolean initialize) {
+        long start = System.nanoTime();
+        try {
+            this.logger.info("Force-loading class {}", target.name);
+            this.classProvider.findClass(target.name, initialize);
+        } catch (Throwable th) {
+            target.error = th.getClass().getName() + ": " + th.getMessage();
+            this.logger.error("Could not force-load " + target.name, th);
+        }
+        target.loadTime = System.nanoTime() - start;
+    }
+
+    private void writeReport(Collection<List<TargetTiming>> waves, long totalTime) {
+        Map<String, MixinTiming> mixins = new TreeMap<String, MixinTiming>();
+        Report report = new Report(this.threads, totalTime, mixins.values());
+        
+        for (List<TargetTiming> wave : waves) {
+            for (TargetTiming target : wave) {
+                Long applyTime = this.applyTimes.get(target.name);
+                target.applyTime = applyTime != null ? applyTime.longValue() : 0L;
+                ClassInfo classInfo = ClassInfo.fromCache(target.name);
+                if (classInfo != null) {
+                    target.mixins = new ArrayList<String>();
+                    for (IMixinInfo mixin : classInfo.getAppliedMixins()) {
+                        target.mixins.add(mixin.getClassName());
+                        MixinTiming mixinTiming = mixins.get(mixin.getClassName());
+                        if (mixinTiming == null) {
+                            mixins.put(mixin.getClassName(), mixinTiming = new MixinTiming(mixin.getClassName()));
+                            mixinTiming.applyTime = this.getMixinApplyTime(mixin.getClassName());
+                        }
+                        mixinTiming.targets++;
+                    }
+                }
+                report.targets.add(target);
+            }
+        }
+        
+        File reportFile = new File(new File(Constants.DEBUG_OUTPUT_DIR, MixinAudit.AUDIT_DIR), MixinAudit.AUDIT_REPORT_FILENAME);
+        reportFile.getParentFile().mkdirs();
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(reportFile), Charsets.UTF_8);
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            gson.toJson(report, writer);
+            this.logger.info("Audit report for {} targets written to {}", report.targets.size(), reportFile.getAbsolutePath());
+        } catch (IOException ex) {
+            this.logger.error("Could not write audit report to {}: {}", reportFile, ex.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private long getMixinApplyTime(String mixin) {
+        synchronized (this.mixinApplyTimes) {
+            Long time = this.mixinApplyTimes.get(mixin);
+            return time != null ? time.longValue() : 0L;
+        }
+    }
+
+    /**
+     * Get the depth of the specified class in the class hierarchy. The
+     * hierarchy is resolved from class metadata, which reads (but does not
+     * load) superclasses which are not already known. Classes whose hierarchy
+     * cannot be resolved are treated as roots.
+     */
+    private static int getDepth(String className) {
+        int depth = 0;
+        for (ClassInfo classInfo = ClassInfo.forName(className); classInfo != null; depth++) {
+            classInfo = classInfo.getSuperClass();
+        }
+        return depth;
+    }
+
+    private static int getThreads(MixinEnvironment environment) {
+        try {
+            int threads = Integer.parseInt(environment.getOptionValue(Option.AUDIT_THREADS));
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException ex) {
+            return 1;
+        }
+    }
+
+}
@@ -24,10 +24,15 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,12 +56,14 @@ import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorDynamic;
 import org.spongepowered.asm.mixin.injection.selectors.TargetSelector;
 import org.spongepowered.asm.mixin.refmap.IReferenceMapper;
+import org.spongepowered.asm.mixin.refmap.MixinIndex;
 import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.mixin.refmap.RemappingReferenceMapper;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
 import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Parallel;
 import org.spongepowered.asm.util.VersionNumber;
 
 import com.google.common.base.Joiner;
@@ -64,6 +71,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.annotations.SerializedName;
 
 /**
@@ -192,6 +200,18 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      */
     private static final Set<String> globalMixinList = new HashSet<String>();
     
+    /**
+     * Gson instance used to read configs, Gson instances are thread-safe
+     */
+    private static final Gson GSON = new Gson();
+    
+    /**
+     * Config JSON read ahead of time by {@link #preload}, entries are removed
+     * when the config is created and any left over are discarded by
+     * {@link #clearPreloaded}
+     */
+    private static final Map<String, JsonElement> preloadedConfigs = new ConcurrentHashMap<String, JsonElement>();
+    
     /**
      * Log even more things
      */
@@ -404,6 +424,11 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      * Reference mapper for injectors
      */
     private transient IReferenceMapper refMapper;
+    
+    /**
+     * Mixin index generated alongside the refmap, if available
+     */
+    private transient MixinIndex index;
 
     /**
      * Keep track of initialisation state 
@@ -781,6 +806,13 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         this.listeners.add(listener);
     }
 
+    /**
+     * Get the refmap resource declared by this config, if any
+     */
+    String getRefMapperConfig() {
+        return this.refMapperConfig;
+    }
+
     /**
      * Initialise the config once it's selected
      */
@@ -817,6 +849,10 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         if (this.env.getOption(Option.REFMAP_REMAP)) {
             this.refMapper = RemappingReferenceMapper.of(this.env, this.refMapper);
         }
+        
+        if (this.env.getOption(Option.ENABLE_MIXIN_INDEX)) {
+            this.index = MixinIndex.read(this.refMapperConfig);
+        }
 
         if (this.refMapperWrapper != null) {
             String wrapperName = this.mixinPackage + this.refMapperWrapper;
@@ -879,6 +915,9 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         
         for (Iterator<MixinInfo> iter = this.mixins.iterator(); iter.hasNext();) {
             MixinInfo mixin = iter.next();
+            if (mixin.isDeferred()) {
+                continue;
+            }
             try {
                 mixin.validate();
                 for (IListener listener : this.listeners) {
@@ -896,6 +935,39 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         }
     }
 
+    /**
+     * Read and validate any mixins for the specified target which were
+     * prepared from the mixin index and have not been read yet. Mixins which
+     * fail validation are removed, as they would be during initialisation.
+     * 
+     * @param targetClass target class name
+     */
+    void realiseMixinsFor(String targetClass) {
+        for (MixinInfo mixin : new ArrayList<MixinInfo>(this.mixinsFor(targetClass))) {
+            try {
+                mixin.realise();
+            } catch (InvalidMixinException ex) {
+                this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
+                this.removeMixin(mixin);
+                this.mixins.remove(mixin);
+            } catch (Exception ex) {
+                this.logger.error(ex.getMessage(), ex);
+                this.removeMixin(mixin);
+                this.mixins.remove(mixin);
+            }
+        }
+    }
+
+    /**
+     * Callback from a mixin which was prepared from the mixin index once its
+     * bytecode has been read and validated
+     */
+    void onRealised(MixinInfo mixin) {
+        for (IListener listener : this.listeners) {
+            listener.onInit(mixin);
+        }
+    }
+
     private void removeMixin(MixinInfo remove) {
         for (List<MixinInfo> mixinsFor : this.mixinMapping.values()) {
             for (Iterator<MixinInfo> iter = mixinsFor.iterator(); iter.hasNext();) {
@@ -927,9 +999,10 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             }
             
             MixinInfo mixin = null;
+            MixinIndex.Entry indexEntry = this.index != null ? this.index.get(fqMixinClass.replace('.', '/')) : null;
             
             try {
-                this.pendingMixins.add(mixin = new MixinInfo(this.service, this, mixinClass, this.plugin, ignorePlugin, extensions));
+                this.pendingMixins.add(mixin = new MixinInfo(this.service, this, mixinClass, this.plugin, ignorePlugin, extensions, indexEntry));
                 MixinConfig.globalMixinList.add(fqMixinClass);
             } catch (InvalidMixinException ex) {
                 if (this.required) {
@@ -1372,6 +1445,56 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         return (this.priority - other.priority);
     }
     
+    /**
+     * Read and parse the JSON of the specified config resources concurrently,
+     * so that creating the configs afterwards does not need to read them.
+     * Resources which cannot be read or parsed are skipped here and the error
+     * is reported when the config is created.
+     * 
+     * @param configFiles config resources to read
+     */
+    static void preload(Collection<String> configFiles) {
+        final IMixinService service = MixinService.getService();
+        List<Callable<JsonElement>> tasks = new ArrayList<Callable<JsonElement>>();
+        for (final String configFile : configFiles) {
+            if (MixinConfig.preloadedConfigs.containsKey(configFile)) {
+                continue;
+            }
+            tasks.add(new Callable<JsonElement>() {
+                @Override
+                public JsonElement call() throws Exception {
+                    JsonElement json = MixinConfig.readJson(service, configFile);
+                    if (json != null) {
+                        MixinConfig.preloadedConfigs.put(configFile, json);
+                    }
+                    return json;
+                }
+            });
+        }
+        Parallel.invokeAll("Mixin Config Reader", tasks);
+    }
+
+    /**
+     * Discard any preloaded config JSON which was not consumed by
+     * {@link #create}
+     */
+    static void clearPreloaded() {
+        MixinConfig.preloadedConfigs.clear();
+    }
+
+    private static JsonElement readJson(IMixinService service, String configFile) throws IOException {
+        InputStream resource = service.getResourceAsStream(configFile);
+        if (resource == null) {
+            return null;
+        }
+        Reader reader = new BufferedReader(new InputStreamReader(resource));
+        try {
+            return MixinConfig.GSON.fromJson(reader, JsonElement.class);
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * Factory method, creates a new mixin configuration bundle from the
      * specified configFile, which must be accessible on the classpath
@@ -1383,11 +1506,14 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
     static Config create(String configFile, MixinEnvironment outer, IMixinConfigSource source) {
         try {
             IMixinService service = MixinService.getService();
-            InputStream resource = service.getResourceAsStream(configFile);
-            if (resource == null) {
+            JsonElement json = MixinConfig.preloadedConfigs.remove(configFile);
+            if (json == null) {
+                json = MixinConfig.readJson(service, configFile);
+            }
+            if (json == null) {
                 throw new IllegalArgumentException(String.format("The specified resource '%s' was invalid or could not be read", configFile));
             }
-            MixinConfig config = new Gson().fromJson(new InputStreamReader(resource), MixinConfig.class);
+            MixinConfig config = MixinConfig.GSON.fromJson(json, MixinConfig.class);
             if (config.onLoad(service, configFile, outer, source)) {
                 return config.getHandle();
             }
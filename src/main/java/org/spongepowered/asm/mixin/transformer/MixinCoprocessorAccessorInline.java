@@ -0,0 +1,373 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.spongepowered.asm.mixin.transformer.ClassInfo.Method;
+import org.spongepowered.asm.util.Bytecode;
+
+/**
+ * This coprocessor rewrites calls to accessor and invoker methods in mixin
+ * targets so that they access the target member directly instead of calling
+ * the accessor through its interface. When one accessor interface is applied
+ * to many classes the interface call sites become megamorphic, whereas the
+ * rewritten call sites are simple field accesses or virtual calls.
+ * 
+ * <p>Only instance accessors are inlined, and only once the accessor target
+ * has itself been transformed, since the generated accessor body is what
+ * determines the member to access. A call site is only rewritten where the
+ * receiver is cast to the accessor interface immediately before the call, as
+ * in <tt>((FooAccessor)foo).getBar()</tt>, so that the cast can be replaced
+ * with a cast to the target class. Members which are not accessible from the
+ * call site are reached through the generated accessor method in the target
+ * class instead, since the target class is already loaded by the time its
+ * accessors are known and its members cannot be made more visible.</p>
+ * 
+ * <p>Because this assumes that the accessor interface is only implemented by
+ * its target class and subclasses of it, which is true unless other code
+ * implements the interface directly, it is only enabled by the
+ * {@link org.spongepowered.asm.mixin.MixinEnvironment.Option#INLINE_ACCESSORS}
+ * option.</p>
+ */
+class MixinCoprocessorAccessorInline extends MixinCoprocessor {
+    
+    /**
+     * A resolved accessor in a transformed target class
+     */
+    static final class AccessorSite {
+        
+        /**
+         * Internal name of the target class
+         */
+        final String owner;
+        
+        /**
+         * True if the target class is public
+         */
+        final boolean ownerIsPublic;
+        
+        /**
+         * Instruction which directly accesses the target member, null if the
+         * generated accessor does not have a recognised form
+         */
+        final AbstractInsnNode direct;
+        
+        /**
+         * Access flags of the member accessed by {@link #direct}
+         */
+        final int directAccess;
+        
+        /**
+         * Call to the generated accessor method in the target class 
+         */
+        final MethodInsnNode proxy;
+        
+        AccessorSite(String owner, boolean ownerIsPublic, AbstractInsnNode direct, int directAccess, MethodInsnNode proxy) {
+            this.owner = owner;
+            this.ownerIsPublic = ownerIsPublic;
+            this.direct = direct;
+            this.directAccess = directAccess;
+            this.proxy = proxy;
+        }
+        
+        /**
+         * Get an instruction to replace a call to the accessor from the
+         * specified class, or null if the target is not accessible from the
+         * calling class
+         */
+        AbstractInsnNode getReplacement(String caller) {
+            if (!this.ownerIsPublic && !MixinCoprocessorAccessorInline.isSamePackage(caller, this.owner)) {
+                return null;
+            }
+            if (this.direct != null && this.isDirectAccessible(caller)) {
+                return this.direct.clone(null);
+            }
+            return this.proxy.clone(null);
+        }
+
+        private boolean isDirectAccessible(String caller) {
+            if ((this.directAccess & Opcodes.ACC_PUBLIC) != 0) {
+                return true;
+            }
+            if ((this.directAccess & Opcodes.ACC_PRIVATE) != 0) {
+                return this.owner.equals(caller);
+            }
+            return MixinCoprocessorAccessorInline.isSamePackage(caller, this.owner);
+        }
+        
+    }
+    
+    /**
+     * Internal names of all mixin targets, call sites are only rewritten in
+     * these classes
+     */
+    private final Set<String> targets = new HashSet<String>();
+    
+    /**
+     * Accessor mixins by the internal name of their target class 
+     */
+    private final Map<String, List<MixinInfo>> accessorsByTarget = new HashMap<String, List<MixinInfo>>();
+    
+    /**
+     * Resolved accessors by accessor interface and then by method name and
+     * descriptor
+     */
+    private final Map<String, Map<String, AccessorSite>> sites = new HashMap<String, Map<String, AccessorSite>>();
+    
+    MixinCoprocessorAccessorInline() {
+    }
+    
+    @Override
+    String getName() {
+        return "accessorinline";
+    }
+    
+    @Override
+    public void onPrepare(MixinInfo mixin) {
+        List<ClassInfo> targetClasses = mixin.getTargets();
+        for (ClassInfo target : targetClasses) {
+            this.targets.add(target.getName());
+        }
+        
+        if (mixin.isAccessor() && targetClasses.size() == 1 && !targetClasses.get(0).isInterface()) {
+            String targetName = targetClasses.get(0).getName();
+            List<MixinInfo> accessors = this.accessorsByTarget.get(targetName);
+            if (accessors == null) {
+                this.accessorsByTarget.put(targetName, accessors = new ArrayList<MixinInfo>());
+            }
+            accessors.add(mixin);
+        }
+    }
+    
+    @Override
+    boolean postProcess(String className, ClassNode classNode) {
+        if (!this.targets.contains(classNode.name)) {
+            return false;
+        }
+        
+        List<MixinInfo> accessors = this.accessorsByTarget.get(classNode.name);
+        if (accessors != null) {
+            for (MixinInfo accessor : accessors) {
+                this.resolveSites(accessor, classNode);
+            }
+        }
+        
+        if (this.sites.isEmpty()) {
+            return false;
+        }
+        
+        boolean transformed = false;
+        for (MethodNode method : classNode.methods) {
+            transformed |= this.inlineCalls(classNode.name, method.instructions);
+        }
+        return transformed;
+    }
+
+    /**
+     * Record the accessors generated in the supplied (transformed) target
+     * class by the specified accessor mixin
+     */
+    private void resolveSites(MixinInfo mixin, ClassNode classNode) {
+        String accessorName = mixin.getClassRef();
+        if (this.sites.containsKey(accessorName)) {
+            return;
+        }
+        
+        Map<String, AccessorSite> accessorSites = new HashMap<String, AccessorSite>();
+        boolean ownerIsPublic = Bytecode.hasFlag(classNode, Opcodes.ACC_PUBLIC);
+        for (Method method : mixin.getClassInfo().getMethods()) {
+            if (method.isStatic()) {
+                continue;
+            }
+            MethodNode generated = Bytecode.findMethod(classNode, method.getName(), method.getDesc());
+            if (generated == null || Bytecode.hasFlag(generated, Opcodes.ACC_STATIC) || !Bytecode.hasFlag(generated, Opcodes.ACC_PUBLIC)) {
+                continue;
+            }
+            
+            AbstractInsnNode direct = MixinCoprocessorAccessorInline.getDirectAccess(classNode.name, generated);
+            int directAccess = MixinCoprocessorAccessorInline.getAccess(classNode, direct);
+            if (directAccess == -1) {
+                direct = null;
+            }
+            MethodInsnNode proxy = new MethodInsnNode(Opcodes.INVOKEVIRTUAL, classNode.name, generated.name, generated.desc, false);
+            accessorSites.put(generated.name + generated.desc, new AccessorSite(classNode.name, ownerIsPublic, direct, directAccess, proxy));
+        }
+        this.sites.put(accessorName, accessorSites);
+    }
+    
+    /**
+     * If the supplied generated accessor simply passes its arguments to a
+     * member of the target class, returns the instruction which accesses the
+     * member
+     */
+    private static AbstractInsnNode getDirectAccess(String owner, MethodNode generated) {
+        AbstractInsnNode direct = null;
+        int expectedVar = 0;
+        boolean returned = false;
+        for (Iterator<AbstractInsnNode> iter = generated.instructions.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            if (insn instanceof LabelNode || insn instanceof LineNumberNode) {
+                continue;
+            }
+            if (returned) {
+                return null;
+            }
+            int opcode = insn.getOpcode();
+            if (direct == null && insn instanceof VarInsnNode && opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) {
+                if (((VarInsnNode)insn).var != expectedVar) {
+                    return null;
+                }
+                expectedVar += opcode == Opcodes.LLOAD || opcode == Opcodes.DLOAD ? 2 : 1;
+            } else if (direct == null && expectedVar > 0 && (opcode == Opcodes.GETFIELD || opcode == Opcodes.PUTFIELD
+                    || opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKESPECIAL)) {
+                direct = insn;
+            } else if (direct != null && opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) {
+                returned = true;
+            } else {
+                return null;
+            }
+        }
+        
+        if (direct instanceof FieldInsnNode) {
+            return owner.equals(((FieldInsnNode)direct).owner) ? direct : null;
+        } else if (direct instanceof MethodInsnNode) {
+            MethodInsnNode call = (MethodInsnNode)direct;
+            return owner.equals(call.owner) && !call.name.startsWith("<") ? direct : null;
+        }
+        return null;
+    }
+    
+    /**
+     * Get the access flags of the member accessed by the supplied instruction,
+     * or -1 if the member cannot be accessed directly
+     */
+    private static int getAccess(ClassNode classNode, AbstractInsnNode direct) {
+        if (direct instanceof FieldInsnNode) {
+            FieldInsnNode fieldInsn = (FieldInsnNode)direct;
+            for (FieldNode field : classNode.fields) {
+                if (field.name.equals(fieldInsn.name) && field.desc.equals(fieldInsn.desc)) {
+                    boolean isFinalPut = fieldInsn.getOpcode() == Opcodes.PUTFIELD && Bytecode.hasFlag(field, Opcodes.ACC_FINAL);
+                    return isFinalPut || Bytecode.hasFlag(field, Opcodes.ACC_STATIC) ? -1 : field.access;
+                }
+            }
+            return -1;
+        } else if (direct instanceof MethodInsnNode) {
+            MethodInsnNode call = (MethodInsnNode)direct;
+            MethodNode method = Bytecode.findMethod(classNode, call.name, call.desc);
+            return method != null && !Bytecode.hasFlag(method, Opcodes.ACC_STATIC) ? method.access : -1;
+        }
+        return -1;
+    }
+    
+    /**
+     * Rewrite calls to resolved accessors in the supplied instruction list 
+     */
+    private boolean inlineCalls(String caller, InsnList insns) {
+        boolean transformed = false;
+        for (Iterator<AbstractInsnNode> iter = insns.iterator(); iter.hasNext();) {
+            AbstractInsnNode insn = iter.next();
+            if (insn.getOpcode() != Opcodes.INVOKEINTERFACE) {
+                continue;
+            }
+            
+            MethodInsnNode call = (MethodInsnNode)insn;
+            Map<String, AccessorSite> accessorSites = this.sites.get(call.owner);
+            AccessorSite site = accessorSites != null ? accessorSites.get(call.name + call.desc) : null;
+            if (site == null) {
+                continue;
+            }
+            
+            TypeInsnNode cast = MixinCoprocessorAccessorInline.findReceiverCast(call);
+            AbstractInsnNode replacement = cast != null ? site.getReplacement(caller) : null;
+            if (replacement != null) {
+                // Replace rather than mutate the nodes, so that the change is
+                // visible to modification tracking
+                insns.set(cast, new TypeInsnNode(Opcodes.CHECKCAST, site.owner));
+                insns.set(call, replacement);
+                transformed = true;
+            }
+        }
+        return transformed;
+    }
+    
+    /**
+     * Find the cast to the accessor interface which produces the receiver of
+     * the supplied call. The cast must precede the call, separated only by
+     * instructions which each push one argument without side effects, so that
+     * the receiver cannot come from anywhere else.
+     */
+    private static TypeInsnNode findReceiverCast(MethodInsnNode call) {
+        int args = Type.getArgumentTypes(call.desc).length;
+        for (AbstractInsnNode insn = call.getPrevious(); insn != null; insn = insn.getPrevious()) {
+            if (insn instanceof LineNumberNode) {
+                continue;
+            }
+            if (insn instanceof LabelNode || insn instanceof FrameNode) {
+                return null;
+            }
+            if (args == 0) {
+                return insn.getOpcode() == Opcodes.CHECKCAST && call.owner.equals(((TypeInsnNode)insn).desc) ? (TypeInsnNode)insn : null;
+            }
+            if (!MixinCoprocessorAccessorInline.isSimplePush(insn)) {
+                return null;
+            }
+            args--;
+        }
+        return null;
+    }
+    
+    private static boolean isSimplePush(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        return (opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.LDC) || (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD);
+    }
+
+    static boolean isSamePackage(String className, String otherClassName) {
+        int pos = className.lastIndexOf('/');
+        int otherPos = otherClassName.lastIndexOf('/');
+        return pos == otherPos && className.regionMatches(0, otherClassName, 0, Math.max(pos, 0));
+    }
+
+}
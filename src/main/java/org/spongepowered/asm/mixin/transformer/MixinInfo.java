@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 import org.spongepowered.asm.logging.Level;
@@ -58,8 +59,11 @@ import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
 import org.spongepowered.asm.mixin.injection.Surrogate;
 import org.spongepowered.asm.mixin.injection.struct.InjectionInfo;
+import org.spongepowered.asm.mixin.refmap.MixinIndex;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Method;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
@@ -680,7 +684,10 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         }
 
         static SubType getTypeFor(MixinInfo mixin) {
-            Variant variant = MixinInfo.getVariant(mixin.getClassInfo());
+            return SubType.getTypeFor(mixin, MixinInfo.getVariant(mixin.getClassInfo()));
+        }
+
+        static SubType getTypeFor(MixinInfo mixin, Variant variant) {
             switch (variant) {
                 case STANDARD:
                     return new SubType.Standard(mixin);
@@ -806,7 +813,7 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
     /**
      * Cached class info 
      */
-    private final transient ClassInfo info;
+    private transient ClassInfo info;
     
     /**
      * Mixin type 
@@ -832,6 +839,24 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * Holds the current validated state
      */
     private transient State state;
+    
+    /**
+     * True if this mixin was prepared from the mixin index and its bytecode
+     * has not been read yet
+     */
+    private transient volatile boolean deferred;
+    
+    /**
+     * Error raised when reading a deferred mixin, rethrown if the mixin is
+     * requested again
+     */
+    private transient InvalidMixinException realiseError;
+    
+    /**
+     * Names of the targets read from the mixin index, checked against the
+     * targets declared in the bytecode when the mixin is realised
+     */
+    private transient Set<String> indexedTargets;
 
     /**
      * Internal ctor, called by {@link MixinConfig}
@@ -841,8 +866,11 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @param plugin mixin config companion plugin handle
      * @param ignorePlugin true to prevent the plugin from filtering targets of
      *      this mixin
+     * @param indexEntry entry for this mixin in the mixin index, if available,
+     *      in which case reading the mixin bytecode is deferred
      */
-    MixinInfo(IMixinService service, MixinConfig parent, String name, PluginHandle plugin, boolean ignorePlugin, Extensions extensions) {
+    MixinInfo(IMixinService service, MixinConfig parent, String name, PluginHandle plugin, boolean ignorePlugin, Extensions extensions,
+            MixinIndex.Entry indexEntry) {
         this.service = service;
         this.parent = parent;
         this.name = name;
@@ -852,16 +880,25 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         this.strict = parent.getEnvironment().getOption(Option.DEBUG_TARGETS);
         this.extensions = extensions;
         
-        // Read the class bytes and transform
-        try {
-            ClassNode mixinClassNode = this.loadMixinClass(this.className);
-            this.pendingState = new State(mixinClassNode);
-            this.info = this.pendingState.getClassInfo();
-            this.type = SubType.getTypeFor(this);
-        } catch (InvalidMixinException ex) {
-            throw ex;
-        } catch (Exception ex) {
-            throw new InvalidMixinException(this, ex.getMessage(), ex);
+        if (indexEntry == null && parent.getEnvironment().getOption(Option.LAZY_MIXINS)) {
+            indexEntry = this.readIndexEntry();
+        }
+        
+        if (indexEntry != null) {
+            this.deferred = true;
+            this.type = SubType.getTypeFor(this, MixinInfo.getVariant(indexEntry));
+        } else {
+            // Read the class bytes and transform
+            try {
+                ClassNode mixinClassNode = this.loadMixinClass(this.className);
+                this.pendingState = new State(mixinClassNode);
+                this.info = this.pendingState.getClassInfo();
+                this.type = SubType.getTypeFor(this);
+            } catch (InvalidMixinException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new InvalidMixinException(this, ex.getMessage(), ex);
+            }
         }
         
         if (!this.type.isLoadable()) {
@@ -876,9 +913,18 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         
         // Read the class bytes and transform
         try {
-            this.priority = this.readPriority(this.pendingState.getClassNode());
-            this.virtual = this.readPseudo(this.pendingState.getValidationClassNode());
-            this.declaredTargets = this.readDeclaredTargets(this.pendingState.getValidationClassNode(), ignorePlugin);
+            if (indexEntry != null) {
+                Integer priority = indexEntry.getPriority();
+                this.priority = priority != null ? priority.intValue() : this.parent.getDefaultMixinPriority();
+                this.virtual = indexEntry.isPseudo();
+                Iterable<Object> targets = this.readTargets(indexEntry);
+                this.indexedTargets = this.getTargetNames(targets);
+                this.declaredTargets = this.readDeclaredTargets(targets, ignorePlugin);
+            } else {
+                this.priority = this.readPriority(this.pendingState.getClassNode());
+                this.virtual = this.readPseudo(this.pendingState.getValidationClassNode());
+                this.declaredTargets = this.readDeclaredTargets(this.pendingState.getValidationClassNode(), ignorePlugin);
+            }
         } catch (InvalidMixinException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -901,6 +947,106 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         }
     }
 
+    /**
+     * Build an index entry for this mixin from its class header and
+     * annotations, skipping method bodies, so that reading the mixin can be
+     * deferred in the same way as for mixins in the mixin index
+     * 
+     * @return index entry for this mixin
+     */
+    @SuppressWarnings("unchecked")
+    private MixinIndex.Entry readIndexEntry() {
+        ClassNode classNode;
+        try {
+            classNode = this.loadMixinClass(this.className, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (InvalidMixinException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new InvalidMixinException(this, ex.getMessage(), ex);
+        }
+        
+        AnnotationNode mixin = Annotations.getInvisible(classNode, Mixin.class);
+        if (mixin == null) {
+            throw new InvalidMixinException(this, String.format("The mixin '%s' is missing an @Mixin annotation", this.className));
+        }
+        
+        MixinIndex.Entry entry = new MixinIndex.Entry()
+                .setPriority(Annotations.<Integer>getValue(mixin, "priority"))
+                .setPseudo(this.readPseudo(classNode))
+                .setInterface((classNode.access & Opcodes.ACC_INTERFACE) != 0);
+        for (Type publicTarget : Annotations.<Type>getValue(mixin, "value", true)) {
+            entry.addPublicTarget(publicTarget.getInternalName());
+        }
+        for (String privateTarget : Annotations.<String>getValue(mixin, "targets", true)) {
+            entry.addPrivateTarget(privateTarget);
+        }
+        
+        // Count methods the same way as getVariant does for ClassInfo, which
+        // does not include initialisers in its methods
+        int methods = 0, accessors = 0;
+        for (MethodNode method : classNode.methods) {
+            if (method.name.startsWith("<")) {
+                continue;
+            }
+            if (Annotations.getSingleVisible(method, Accessor.class, Invoker.class) != null) {
+                accessors++;
+            } else if ((method.access & Opcodes.ACC_SYNTHETIC) == 0) {
+                methods++;
+            }
+        }
+        return entry.setMethodCount(methods).setAccessorCount(accessors);
+    }
+
+    /**
+     * Get whether the bytecode of this mixin has not been read yet because the
+     * mixin was prepared from the mixin index or lazily
+     */
+    boolean isDeferred() {
+        return this.deferred;
+    }
+    
+    /**
+     * Read and validate the bytecode of a mixin which was prepared from the
+     * mixin index. Does nothing if the mixin was already read, and rethrows
+     * the original error if reading the mixin previously failed.
+     */
+    synchronized void realise() {
+        if (this.realiseError != null) {
+            throw this.realiseError;
+        }
+        if (!this.deferred) {
+            return;
+        }
+        
+        this.deferred = false;
+        Section timer = this.profiler.begin("realise");
+        try {
+            State state = new State(this.loadMixinClass(this.className));
+            Variant variant = MixinInfo.getVariant(state.getClassInfo());
+            if (SubType.getTypeFor(this, variant).getClass() != this.type.getClass()) {
+                throw new InvalidMixinException(this, String.format("The mixin index entry for %s is out of date, found %s mixin", this,
+                        variant.name().toLowerCase(Locale.ROOT)));
+            }
+            AnnotationNode mixin = Annotations.getInvisible(state.getClassNode(), Mixin.class);
+            Set<String> targets = mixin != null ? this.getTargetNames(this.readTargets(mixin)) : Collections.<String>emptySet();
+            if (!targets.equals(this.indexedTargets)) {
+                throw new InvalidMixinException(this, String.format("The mixin index entry for %s is out of date, declared targets %s do not match "
+                        + "indexed targets %s", this, targets, this.indexedTargets));
+            }
+            this.info = state.getClassInfo();
+            this.pendingState = state;
+            this.validate();
+        } catch (InvalidMixinException ex) {
+            throw this.realiseError = ex;
+        } catch (Exception ex) {
+            throw this.realiseError = new InvalidMixinException(this, ex.getMessage(), ex);
+        } finally {
+            timer.end();
+        }
+        
+        this.parent.onRealised(this);
+    }
+
     /**
      * Run validation pass
      */
@@ -934,9 +1080,13 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
             throw new InvalidMixinException(this, String.format("The mixin '%s' is missing an @Mixin annotation", this.className));
         }
         
+        return this.readDeclaredTargets(this.readTargets(mixin), ignorePlugin);
+    }
+
+    private List<DeclaredTarget> readDeclaredTargets(Iterable<Object> targets, boolean ignorePlugin) {
         IClassTracker tracker = this.service.getClassTracker();
         List<DeclaredTarget> declaredTargets = new ArrayList<DeclaredTarget>();
-        for (Object target : this.readTargets(mixin)) {
+        for (Object target : targets) {
             DeclaredTarget declaredTarget = DeclaredTarget.of(target, this);
             if (declaredTarget == null) {
                 continue;
@@ -975,6 +1125,39 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         return privateTargets == null ? publicTargets : Iterables.concat(publicTargets, privateTargets);
     }
 
+    /**
+     * Read the public and private mixin targets from the supplied index entry.
+     * Public targets are recorded in the index by their compile-time names and
+     * are remapped through the refmap, since reobfuscation only rewrites the
+     * class literals in the mixin bytecode.
+     * 
+     * @param entry mixin index entry
+     * @return target list
+     */
+    private Iterable<Object> readTargets(MixinIndex.Entry entry) {
+        List<Object> targets = new ArrayList<Object>();
+        for (String publicTarget : entry.getPublicTargets()) {
+            targets.add(Type.getObjectType(this.remapClassName(publicTarget)));
+        }
+        targets.addAll(entry.getPrivateTargets());
+        return targets;
+    }
+
+    /**
+     * Get the names of the supplied targets, used to compare the targets read
+     * from the index with the targets declared in the mixin bytecode
+     */
+    private Set<String> getTargetNames(Iterable<Object> targets) {
+        Set<String> names = new HashSet<String>();
+        for (Object target : targets) {
+            DeclaredTarget declaredTarget = DeclaredTarget.of(target, this);
+            if (declaredTarget != null) {
+                names.add(declaredTarget.name);
+            }
+        }
+        return names;
+    }
+
     /**
      * Check whether this mixin should apply to the specified taret
      * 
@@ -1084,6 +1267,9 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * the mixin is initialising for the first time. Should never return null.
      */
     private State getState() {
+        if (this.deferred) {
+            this.realise();
+        }
         return this.state != null ? this.state : this.pendingState;
     }
 
@@ -1091,6 +1277,9 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * Get the ClassInfo for the mixin class
      */
     ClassInfo getClassInfo() {
+        if (this.deferred) {
+            this.realise();
+        }
         return this.info;
     }
     
@@ -1138,7 +1327,8 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      */
     @Override
     public String getClassRef() {
-        return this.getClassInfo().getName();
+        // Don't read a deferred mixin just to get its name
+        return this.info != null ? this.info.getName() : this.className.replace('.', '/');
     }
 
     /**
@@ -1298,6 +1488,11 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @throws ClassNotFoundException if the mixin bytes could not be found
      */
     private ClassNode loadMixinClass(String mixinClassName) throws ClassNotFoundException {
+        int readerFlags = this.parent.getEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
+        return this.loadMixinClass(mixinClassName, readerFlags);
+    }
+
+    private ClassNode loadMixinClass(String mixinClassName, int readerFlags) throws ClassNotFoundException {
         ClassNode classNode = null;
 
         try {
@@ -1308,7 +1503,6 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
                     this.logger.error("Classloader restrictions [{}] encountered loading {}, name: {}", restrictions, this, mixinClassName);
                 }
             }
-            int readerFlags = this.parent.getEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
             classNode = this.service.getBytecodeProvider().getClassNode(mixinClassName, true, readerFlags);
         } catch (ClassNotFoundException ex) {
             throw new ClassNotFoundException(String.format("The specified mixin '%s' was not found", mixinClassName));
@@ -1326,6 +1520,7 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @param classNode New bytecode
      */
     void reloadMixin(ClassNode classNode) {
+        this.realise();
         if (this.pendingState != null) {
             throw new IllegalStateException("Cannot reload mixin while it is initialising");
         }
@@ -1375,7 +1570,10 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         }
         
         this.parent.postApply(transformedName, targetClass);
-        this.info.addAppliedMixin(this);
+        ClassInfo targetInfo = ClassInfo.fromCache(transformedName);
+        if (targetInfo != null) {
+            targetInfo.addAppliedMixin(this);
+        }
     }
     
     /* (non-Javadoc)
@@ -1390,6 +1588,15 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         return MixinInfo.getVariant(ClassInfo.fromClassNode(classNode));
     }
     
+    static Variant getVariant(MixinIndex.Entry entry) {
+        if (!entry.isInterface()) {
+            return Variant.STANDARD;
+        }
+        
+        // Same rules as for ClassInfo below, using the counts from the index
+        return entry.getMethodCount() > 0 ? Variant.INTERFACE : Variant.ACCESSOR;
+    }
+    
     static Variant getVariant(ClassInfo classInfo) {
 //        if (ProxyInfo.isProxy(classInfo)) {
 //            return Variant.PROXY;
@@ -183,13 +183,13 @@ class MixinPreProcessorStandard {
             activity.next("Prepare method");
             for (MixinMethodNode mixinMethod : this.classNode.mixinMethods) {
                 Method method = this.mixin.getClassInfo().findMethod(mixinMethod);
-                IActivity methodActivity = this.activities.begin(mixinMethod.toString());
+                IActivity methodActivity = this.activities.begin("%s", mixinMethod);
                 this.prepareMethod(mixinMethod, method);
                 methodActivity.end();
             }
             activity.next("Prepare field");
             for (FieldNode mixinField : this.classNode.fields) {
-                IActivity fieldActivity = this.activities.begin(String.format("%s:%s", mixinField.name, mixinField.desc));
+                IActivity fieldActivity = this.activities.begin("%s:%s", mixinField.name, mixinField.desc);
                 this.prepareField(mixinField);
                 fieldActivity.end();
             }
@@ -43,6 +43,7 @@ import org.spongepowered.asm.mixin.extensibility.IMixinErrorHandler.ErrorAction;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorDynamic;
+import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
 import org.spongepowered.asm.mixin.throwables.ClassAlreadyLoadedException;
 import org.spongepowered.asm.mixin.throwables.MixinApplyError;
 import org.spongepowered.asm.mixin.throwables.MixinException;
@@ -52,7 +53,9 @@ import org.spongepowered.asm.mixin.transformer.MixinCoprocessor.ProcessResult;
 import org.spongepowered.asm.mixin.transformer.MixinInfo.Variant;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.ext.IHotSwap;
+import org.spongepowered.asm.mixin.transformer.ext.extensions.ExtensionCheckInterfaces;
 import org.spongepowered.asm.mixin.transformer.ext.extensions.ExtensionClassExporter;
+import org.spongepowered.asm.mixin.transformer.meta.MixinBaked;
 import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
 import org.spongepowered.asm.mixin.transformer.throwables.IllegalClassLoadError;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
@@ -66,6 +69,7 @@ import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.ReEntranceLock;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
+import org.spongepowered.asm.util.perf.Trace;
 
 /**
  * Heart of the Mixin pipeline 
@@ -215,6 +219,11 @@ class MixinProcessor {
      * Number of classes transformed in the current phase
      */
     private int transformedCount = 0;
+    
+    /**
+     * Audit in progress, if any
+     */
+    private volatile MixinAudit audit;
 
     /**
      * ctor 
@@ -229,6 +238,9 @@ class MixinProcessor {
         this.coprocessors.add(new MixinCoprocessorSyntheticInner());
         this.coprocessors.add(new MixinCoprocessorAccessor(this.sessionId));
         this.coprocessors.add(nestHostCoprocessor);
+        if (environment.getOption(Option.INLINE_ACCESSORS)) {
+            this.coprocessors.add(new MixinCoprocessorAccessorInline());
+        }
         
         this.profiler = Profiler.getProfiler("mixin");
         this.auditTrail = this.service.getAuditTrail();
@@ -248,13 +260,16 @@ class MixinProcessor {
 
         ILogger auditLogger = MixinService.getService().getLogger("mixin.audit");
 
-        for (String target : unhandled) {
-            try {
-                auditLogger.info("Force-loading class {}", target);
-                this.service.getClassProvider().findClass(target, true);
-            } catch (ClassNotFoundException ex) {
-                auditLogger.error("Could not force-load " + target, ex);
-            }
+        this.audit = new MixinAudit(environment, this.service.getClassProvider(), auditLogger);
+        try {
+            this.audit.run(unhandled);
+        } finally {
+            this.audit = null;
+        }
+        
+        ExtensionCheckInterfaces checkInterfaces = this.extensions.<ExtensionCheckInterfaces>getExtension(ExtensionCheckInterfaces.class);
+        if (checkInterfaces != null) {
+            checkInterfaces.flush();
         }
         
         for (MixinConfig config : this.configs) {
@@ -298,6 +313,12 @@ class MixinProcessor {
         boolean transformed = false;
         
         try {
+            AnnotationNode baked = Annotations.getInvisible(targetClassNode, MixinBaked.class);
+            if (baked != null) {
+                this.onBakedClass(name, targetClassNode, baked);
+                return false;
+            }
+
             ProcessResult result = this.coprocessors.process(name, targetClassNode);
             transformed |= result.isTransformed();
             
@@ -336,6 +357,9 @@ class MixinProcessor {
 
             SortedSet<MixinInfo> mixins = null;
             for (MixinConfig config : this.configs) {
+                if (config.hasMixinsFor(name)) {
+                    config.realiseMixinsFor(name);
+                }
                 if (config.hasMixinsFor(name)) {
                     if (mixins == null) {
                         mixins = new TreeSet<MixinInfo>();
@@ -359,8 +383,19 @@ class MixinProcessor {
                 }
 
                 try {
+                    long applyStart = System.nanoTime();
+                    long traceStart = Trace.start();
+                    MixinAudit audit = this.audit;
                     TargetClassContext context = new TargetClassContext(environment, this.extensions, this.sessionId, name, targetClassNode, mixins);
+                    if (audit != null) {
+                        context.recordMixinTimes();
+                    }
                     context.applyMixins();
+                    Trace.end(Trace.TARGET, "apply", traceStart, "mixins", String.valueOf(mixins.size()));
+                    
+                    if (audit != null) {
+                        audit.onApplied(name, System.nanoTime() - applyStart, context.getMixinTimes());
+                    }
                     
                     transformed |= this.coprocessors.postProcess(name, targetClassNode);
 
@@ -397,6 +432,34 @@ class MixinProcessor {
         return transformed;
     }
 
+    /**
+     * Called when a class which was baked by the offline mixin baker is
+     * encountered. Mixins for the class are not applied again, but the target
+     * is marked as handled in each config and any difference between the
+     * mixins baked into the class and the mixins currently targetting it is
+     * reported.
+     */
+    private void onBakedClass(String name, ClassNode targetClassNode, AnnotationNode baked) {
+        List<String> bakedMixins = Annotations.<List<String>>getValue(baked, "mixins", Collections.<String>emptyList());
+        Set<String> missing = new TreeSet<String>();
+        for (MixinConfig config : this.configs) {
+            if (config.hasMixinsFor(name)) {
+                for (MixinInfo mixin : config.getMixinsFor(name)) {
+                    if (!bakedMixins.contains(mixin.getClassName())) {
+                        missing.add(mixin.getClassName());
+                    }
+                }
+                config.postApply(name, targetClassNode);
+            }
+        }
+        
+        MixinProcessor.logger.log(this.verboseLoggingLevel, "Skipping mixin application for baked class {} ({} mixins)", name, bakedMixins.size());
+        if (!missing.isEmpty()) {
+            MixinProcessor.logger.warn("Baked class {} is missing mixins {} which were added after it was baked, these mixins will not be applied",
+                    name, missing);
+        }
+    }
+
     private String getInvalidClassError(String name, ClassNode targetClassNode, MixinConfig ownedByConfig) {
         if (ownedByConfig.getClasses().contains(name)) {
             return String.format("Illegal classload request for %s. Mixin is defined in %s and cannot be referenced directly", name, ownedByConfig);
@@ -488,21 +551,38 @@ class MixinProcessor {
      * @param environment Environment to query
      */
     private void selectConfigs(MixinEnvironment environment) {
+        List<MixinConfig> selected = new ArrayList<MixinConfig>();
+        Set<String> refMaps = new HashSet<String>();
         for (Iterator<Config> iter = Mixins.getConfigs().iterator(); iter.hasNext();) {
             Config handle = iter.next();
             try {
                 MixinConfig config = handle.get();
                 if (config.select(environment)) {
                     iter.remove();
-                    MixinProcessor.logger.log(this.verboseLoggingLevel, "Selecting config {}", config);
-                    config.onSelect();
-                    this.pendingConfigs.add(config);
+                    selected.add(config);
+                    if (config.getRefMapperConfig() != null) {
+                        refMaps.add(config.getRefMapperConfig());
+                    }
                 }
             } catch (Exception ex) {
                 MixinProcessor.logger.warn(String.format("Failed to select mixin config: %s", handle), ex);
             }
         }
         
+        // Read the declared refmaps concurrently before configs read them
+        ReferenceMapper.preload(refMaps);
+        
+        for (MixinConfig config : selected) {
+            try {
+                MixinProcessor.logger.log(this.verboseLoggingLevel, "Selecting config {}", config);
+                config.onSelect();
+                this.pendingConfigs.add(config);
+            } catch (Exception ex) {
+                MixinProcessor.logger.warn(String.format("Failed to select mixin config: %s", config), ex);
+            }
+        }
+        ReferenceMapper.clearPreloaded();
+        
         Collections.sort(this.pendingConfigs);
     }
 
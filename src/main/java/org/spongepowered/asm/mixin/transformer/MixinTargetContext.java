@@ -43,6 +43,7 @@ import org.spongepowered.asm.mixin.SoftOverride;
 import org.spongepowered.asm.mixin.extensibility.IActivityContext.IActivity;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.gen.AccessorInfo;
+import org.spongepowered.asm.mixin.gen.MemberIndex;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.struct.Constructor;
 import org.spongepowered.asm.mixin.injection.struct.InjectionInfo;
@@ -55,6 +56,7 @@ import org.spongepowered.asm.mixin.refmap.IReferenceMapper;
 import org.spongepowered.asm.mixin.struct.MemberRef;
 import org.spongepowered.asm.mixin.struct.SourceMap.File;
 import org.spongepowered.asm.mixin.throwables.ClassMetadataNotFoundException;
+import org.spongepowered.asm.mixin.transformer.ActivityStack.Activity;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Field;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Method;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.SearchType;
@@ -465,34 +467,28 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
             
             activity.next("Transform Instructions");
             AbstractInsnNode lastInsn = null;
+            Activity insnActivity = this.activities.begin("?");
             for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
                 AbstractInsnNode insn = iter.next();
-                IActivity insnActivity = this.activities.begin(Bytecode.getOpcodeName(insn) + " ");
+                insnActivity.next(insn);
     
                 if (insn instanceof MethodInsnNode) {
-                    MethodInsnNode methodNode = (MethodInsnNode)insn;
-                    insnActivity.append("%s::%s%s", methodNode.owner, methodNode.name, methodNode.desc);
-                    this.transformMethodRef(method, iter, new MemberRef.Method(methodNode));
+                    this.transformMethodRef(method, iter, new MemberRef.Method((MethodInsnNode)insn));
                 } else if (insn instanceof FieldInsnNode) {
                     FieldInsnNode fieldNode = (FieldInsnNode)insn;
-                    insnActivity.append("%s::%s:%s", fieldNode.owner, fieldNode.name, fieldNode.desc);
                     this.transformFieldRef(method, iter, new MemberRef.Field(fieldNode));
                     this.checkFinal(method, iter, fieldNode);
                 } else if (insn instanceof TypeInsnNode) {
-                    TypeInsnNode typeNode = (TypeInsnNode)insn;
-                    insnActivity.append(typeNode.desc);
-                    this.transformTypeNode(method, iter, typeNode, lastInsn);
+                    this.transformTypeNode(method, iter, (TypeInsnNode)insn, lastInsn);
                 } else if (insn instanceof LdcInsnNode) {
                     this.transformConstantNode(method, iter, (LdcInsnNode)insn);
                 } else if (insn instanceof InvokeDynamicInsnNode) {
-                    InvokeDynamicInsnNode invokeNode = (InvokeDynamicInsnNode)insn;
-                    insnActivity.append("%s %s", invokeNode.name, invokeNode.desc);
-                    this.transformInvokeDynamicNode(method, iter, invokeNode);
+                    this.transformInvokeDynamicNode(method, iter, (InvokeDynamicInsnNode)insn);
                 }
                 
                 lastInsn = insn;
-                insnActivity.end();
             }
+            insnActivity.end();
             activity.end();
         } catch (InvalidMixinException ex) {
             ex.prepend(this.activities);
@@ -1486,9 +1482,10 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
         try {
             IActivity accessorActivity = this.activities.begin("Locate");
             IActivity locateActivity = this.activities.begin("?");
+            MemberIndex members = new MemberIndex(this.getTargetClassNode());
             for (AccessorInfo accessor : this.accessors) {
                 locateActivity.next(accessor.toString());
-                accessor.locate();
+                accessor.locate(members);
             }
             
             accessorActivity.next("Validate"); 
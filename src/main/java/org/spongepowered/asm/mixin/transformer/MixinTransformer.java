@@ -25,7 +25,21 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.launch.MixinInitialisationError;
@@ -35,9 +49,13 @@ import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.ext.IExtensionRegistry;
 import org.spongepowered.asm.mixin.transformer.ext.IHotSwap;
+import org.spongepowered.asm.service.IMixinMetrics.Metric;
+import org.spongepowered.asm.transformers.MixinClassReader;
 import org.spongepowered.asm.transformers.TreeTransformer;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.asm.ASM;
+import org.spongepowered.asm.util.perf.Metrics;
+import org.spongepowered.asm.util.perf.Trace;
 
 /**
  * Transformer which manages the mixin configuration and application process
@@ -62,6 +80,26 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
     
     private static final String MIXIN_AGENT_CLASS = "org.spongepowered.tools.agent.MixinAgent";
     
+    /**
+     * Time after which idle batch reader threads are stopped
+     */
+    private static final long BATCH_THREAD_KEEPALIVE_SECONDS = 30L;
+    
+    /**
+     * Thread factory for batch reader threads, threads are daemon threads so
+     * that a stalled batch can never hold the VM open
+     */
+    private static final ThreadFactory BATCH_THREAD_FACTORY = new ThreadFactory() {
+        private int index;
+        
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Mixin Batch Reader #" + (++this.index));
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+    
     /**
      * Synthetic class registry
      */
@@ -92,6 +130,12 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * Class generator 
      */
     private final MixinClassGenerator generator;
+    
+    /**
+     * Worker pool for reading batches of classes, created on first use and
+     * reused for the lifetime of the transformer 
+     */
+    private volatile ExecutorService batchExecutor;
 
     MixinTransformer() {
         MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
@@ -230,11 +274,19 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      */
     @Override
     public byte[] transformClass(MixinEnvironment environment, String name, byte[] classBytes) {
-        ClassNode classNode = this.readClass(name, classBytes);
-        if (this.processor.applyMixins(environment, name, classNode)) {
-            return this.writeClass(classNode);
+        long traceStart = Trace.start();
+        try {
+            // The reader is only worth retaining when unmodified methods can be
+            // copied from it, which requires modified frames tracking
+            ClassNode classNode = this.readClass(name, classBytes, environment.getOption(Option.COMPUTE_MODIFIED_FRAMES));
+            Trace.end(Trace.IO, "read", traceStart, "class", name);
+            if (this.processor.applyMixins(environment, name, classNode)) {
+                return this.writeTargetClass(name, classNode);
+            }
+            return classBytes;
+        } finally {
+            Trace.end(Trace.TARGET, name, traceStart);
         }
-        return classBytes;
     }
 
     /**
@@ -250,6 +302,191 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
         return this.processor.applyMixins(environment, name, classNode);
     }
     
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.IMixinTransformer
+     *      #transformClasses(org.spongepowered.asm.mixin.MixinEnvironment,
+     *      java.util.Map)
+     */
+    @Override
+    public Map<String, TransformResult> transformClasses(MixinEnvironment environment, Map<String, byte[]> classes) {
+        Map<String, TransformResult> results = new LinkedHashMap<String, TransformResult>();
+        Map<String, ClassNode> classNodes = this.readClasses(environment, classes, results);
+        
+        // Warm the hierarchy for the whole batch before any mixins are applied,
+        // the processor monitor is otherwise only held whilst applying mixins
+        // so that reading and writing classes does not block other threads
+        synchronized (this.processor) {
+            for (ClassNode classNode : classNodes.values()) {
+                ClassInfo.fromClassNode(classNode);
+            }
+        }
+        
+        for (String name : MixinTransformer.sortByHierarchy(classNodes)) {
+            ClassNode classNode = classNodes.get(name);
+            byte[] classBytes = classes.get(name);
+            long traceStart = Trace.start();
+            try {
+                if (this.processor.applyMixins(environment, name, classNode)) {
+                    results.put(name, new TransformResult(name, this.writeTargetClass(name, classNode), true, null));
+                } else {
+                    results.put(name, new TransformResult(name, classBytes, false, null));
+                }
+            } catch (Throwable th) {
+                MixinProcessor.logger.error("Batch transformation of {} failed: {} {}", name, th.getClass().getName(), th.getMessage());
+                results.put(name, new TransformResult(name, classBytes, false, th));
+            } finally {
+                Trace.end(Trace.TARGET, name, traceStart);
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Write a transformed target class, recording the time taken (including
+     * computing frames) as the write time for the target
+     */
+    private byte[] writeTargetClass(String name, ClassNode classNode) {
+        long start = Metrics.start();
+        long traceStart = Trace.start();
+        byte[] bytes = this.writeClass(classNode);
+        Metrics.recordTime(null, null, name, Metric.WRITE_TIME, start);
+        Trace.end(Trace.IO, "write", traceStart, "class", name);
+        return bytes;
+    }
+    
+    /**
+     * Read the bytecode for a batch of classes, in parallel where the batch
+     * and configured thread count allow. Classes which cannot be read are
+     * added to the supplied results with the error which was raised.
+     */
+    private Map<String, ClassNode> readClasses(MixinEnvironment environment, Map<String, byte[]> classes, Map<String, TransformResult> results) {
+        Map<String, ClassNode> classNodes = new LinkedHashMap<String, ClassNode>();
+        final boolean cacheReader = environment.getOption(Option.COMPUTE_MODIFIED_FRAMES);
+        int threads = Math.min(MixinTransformer.getBatchThreads(environment), classes.size());
+        if (threads < 2) {
+            for (Entry<String, byte[]> entry : classes.entrySet()) {
+                try {
+                    classNodes.put(entry.getKey(), MixinTransformer.readBatchClass(entry.getKey(), entry.getValue(), cacheReader));
+                } catch (Throwable th) {
+                    results.put(entry.getKey(), new TransformResult(entry.getKey(), entry.getValue(), false, th));
+                }
+            }
+            return classNodes;
+        }
+        
+        ExecutorService executor = this.getBatchExecutor(environment);
+        Map<String, Future<ClassNode>> futures = new LinkedHashMap<String, Future<ClassNode>>();
+        try {
+            for (final Entry<String, byte[]> entry : classes.entrySet()) {
+                futures.put(entry.getKey(), executor.submit(new Callable<ClassNode>() {
+                    @Override
+                    public ClassNode call() throws Exception {
+                        return MixinTransformer.readBatchClass(entry.getKey(), entry.getValue(), cacheReader);
+                    }
+                }));
+            }
+            
+            for (Entry<String, Future<ClassNode>> future : futures.entrySet()) {
+                String name = future.getKey();
+                try {
+                    classNodes.put(name, future.getValue().get());
+                } catch (ExecutionException ex) {
+                    results.put(name, new TransformResult(name, classes.get(name), false, ex.getCause()));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new MixinException("Interrupted whilst reading batch of " + classes.size() + " classes", ex);
+                }
+            }
+        } finally {
+            // Discard any reads which are still pending if the batch was abandoned
+            for (Future<ClassNode> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+        
+        return classNodes;
+    }
+    
+    /**
+     * Get the worker pool for reading batches of classes, creating it on first
+     * use. Idle workers are allowed to time out so that the pool does not hold
+     * threads between batches.
+     */
+    private ExecutorService getBatchExecutor(MixinEnvironment environment) {
+        ExecutorService executor = this.batchExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.batchExecutor;
+                if (executor == null) {
+                    int threads = MixinTransformer.getBatchThreads(environment);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, MixinTransformer.BATCH_THREAD_KEEPALIVE_SECONDS,
+                            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), MixinTransformer.BATCH_THREAD_FACTORY);
+                    pool.allowCoreThreadTimeOut(true);
+                    this.batchExecutor = executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+    
+    private static ClassNode readBatchClass(String name, byte[] classBytes, boolean cacheReader) {
+        long traceStart = Trace.start();
+        ClassNode classNode = TreeTransformer.readClassNode(new MixinClassReader(classBytes, name), cacheReader);
+        Trace.end(Trace.IO, "read", traceStart, "class", name);
+        return classNode;
+    }
+    
+    private static int getBatchThreads(MixinEnvironment environment) {
+        try {
+            int threads = Integer.parseInt(environment.getOptionValue(Option.BATCH_THREADS));
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException ex) {
+            // use default
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+    
+    /**
+     * Order the classes in a batch so that superclasses and superinterfaces
+     * which are also members of the batch are visited before the classes
+     * which extend them, this mirrors the order in which the classes would be
+     * loaded at runtime and ensures that members added to a supertype by
+     * mixins are visible when its subtypes are transformed.
+     */
+    private static List<String> sortByHierarchy(Map<String, ClassNode> classNodes) {
+        Map<String, String> names = new LinkedHashMap<String, String>();
+        for (Entry<String, ClassNode> entry : classNodes.entrySet()) {
+            names.put(entry.getValue().name, entry.getKey());
+        }
+        
+        List<String> sorted = new ArrayList<String>(classNodes.size());
+        Set<String> visited = new HashSet<String>();
+        for (String internalName : names.keySet()) {
+            MixinTransformer.visitHierarchy(internalName, classNodes, names, visited, sorted);
+        }
+        return sorted;
+    }
+
+    private static void visitHierarchy(String internalName, Map<String, ClassNode> classNodes, Map<String, String> names, Set<String> visited,
+            List<String> sorted) {
+        String name = names.get(internalName);
+        if (name == null || !visited.add(internalName)) {
+            return;
+        }
+        
+        ClassNode classNode = classNodes.get(name);
+        MixinTransformer.visitHierarchy(classNode.superName, classNodes, names, visited, sorted);
+        if (classNode.interfaces != null) {
+            for (String itf : classNode.interfaces) {
+                MixinTransformer.visitHierarchy(itf, classNodes, names, visited, sorted);
+            }
+        }
+        sorted.add(name);
+    }
+
     /**
      * Generate the specified mixin-synthetic class
      * 
@@ -24,12 +24,14 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.spongepowered.asm.mixin.throwables.MixinError;
 import org.spongepowered.asm.service.ISyntheticClassInfo;
-import org.spongepowered.asm.service.ISyntheticClassRegistry;
+import org.spongepowered.asm.service.IEnumerableSyntheticClassRegistry;
 
 /**
  * Implementation of synthetic class registry. This exists to maintain a list of
@@ -40,7 +42,7 @@ import org.spongepowered.asm.service.ISyntheticClassRegistry;
  * to generate synthetic classes, and the entry point to the processing
  * pipeline.
  */
-class SyntheticClassRegistry implements ISyntheticClassRegistry {
+class SyntheticClassRegistry implements IEnumerableSyntheticClassRegistry {
     
     /**
      * Map of class name to {@link ISyntheticClassInfo} structs
@@ -62,6 +64,15 @@ class SyntheticClassRegistry implements ISyntheticClassRegistry {
         return this.classes.get(name.replace('.', '/'));
     }
     
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IEnumerableSyntheticClassRegistry
+     *      #getSyntheticClasses()
+     */
+    @Override
+    public Collection<ISyntheticClassInfo> getSyntheticClasses() {
+        return Collections.<ISyntheticClassInfo>unmodifiableCollection(this.classes.values());
+    }
+    
     /**
      * Package-private
      */
@@ -25,6 +25,7 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -152,6 +153,12 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
      */
     private boolean forceExport;
     
+    /**
+     * Time spent applying each mixin to this class, in nanoseconds, only
+     * recorded if requested before mixins are applied
+     */
+    private Map<String, Long> mixinTimes;
+    
     TargetClassContext(MixinEnvironment env, Extensions extensions, String sessionId, String name, ClassNode classNode, SortedSet<MixinInfo> mixins) {
         this.env = env;
         this.extensions = extensions;
@@ -183,6 +190,32 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         return this.forceExport;
     }
     
+    /**
+     * Record the time spent applying each mixin to this class
+     */
+    void recordMixinTimes() {
+        this.mixinTimes = new HashMap<String, Long>();
+    }
+    
+    boolean isRecordingMixinTimes() {
+        return this.mixinTimes != null;
+    }
+    
+    void addMixinTime(String mixin, long time) {
+        if (this.mixinTimes != null) {
+            Long total = this.mixinTimes.get(mixin);
+            this.mixinTimes.put(mixin, Long.valueOf(total != null ? total.longValue() + time : time));
+        }
+    }
+    
+    /**
+     * Get the time spent applying each mixin to this class, empty unless
+     * {@link #recordMixinTimes} was called before mixins were applied
+     */
+    Map<String, Long> getMixinTimes() {
+        return this.mixinTimes != null ? this.mixinTimes : Collections.<String, Long>emptyMap();
+    }
+    
     /**
      * Get the transformer extensions
      */
@@ -399,6 +432,7 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         this.applySignature();
         this.upgradeMethods();
         this.checkMerges();
+        this.checkMethodSizes();
     }
     
     /**
@@ -415,6 +449,25 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         }
     }
 
+    /**
+     * Outline injection glue from targets which have grown too large, and
+     * report targets which are still too large to be compiled by the JIT
+     */
+    private void checkMethodSizes() {
+        int threshold = this.getMethodSizeThreshold();
+        if (threshold > 0 && !this.targetMethods.isEmpty()) {
+            new MethodSizeGuard(this, threshold).check(this.targetMethods.values());
+        }
+    }
+    
+    private int getMethodSizeThreshold() {
+        try {
+            return Integer.parseInt(this.env.getOptionValue(Option.HUGE_METHOD_THRESHOLD));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
     private MixinApplicatorStandard createApplicator() {
         if (this.classInfo.isInterface()) {
             return new MixinApplicatorInterface(this);
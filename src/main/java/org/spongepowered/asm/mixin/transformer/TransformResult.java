@@ -0,0 +1,106 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+/**
+ * Result of transforming a single class as part of a batch passed to
+ * {@link IMixinTransformer#transformClasses}
+ */
+public final class TransformResult {
+
+    /**
+     * Class transformed name
+     */
+    private final String name;
+    
+    /**
+     * Resulting bytecode, the original bytecode if the class was not
+     * transformed or transformation failed
+     */
+    private final byte[] bytes;
+    
+    /**
+     * True if the class was transformed
+     */
+    private final boolean transformed;
+    
+    /**
+     * Error raised whilst transforming the class, if any
+     */
+    private final Throwable error;
+
+    TransformResult(String name, byte[] bytes, boolean transformed, Throwable error) {
+        this.name = name;
+        this.bytes = bytes;
+        this.transformed = transformed;
+        this.error = error;
+    }
+    
+    /**
+     * Get the class transformed name
+     */
+    public String getName() {
+        return this.name;
+    }
+    
+    /**
+     * Get the resulting bytecode. If the class was not transformed or an error
+     * occurred this is the original bytecode which was supplied.
+     */
+    public byte[] getBytes() {
+        return this.bytes;
+    }
+    
+    /**
+     * Get whether the class was transformed
+     */
+    public boolean isTransformed() {
+        return this.transformed;
+    }
+    
+    /**
+     * Get whether the class was processed without error
+     */
+    public boolean isSuccessful() {
+        return this.error == null;
+    }
+    
+    /**
+     * Get the error raised whilst processing this class, or <tt>null</tt> if
+     * the class was processed successfully
+     */
+    public Throwable getError() {
+        return this.error;
+    }
+    
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("TransformResult[%s transformed=%s error=%s]", this.name, this.transformed, this.error);
+    }
+
+}
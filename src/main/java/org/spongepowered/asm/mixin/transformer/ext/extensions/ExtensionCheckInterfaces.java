@@ -24,9 +24,8 @@
  */
 package org.spongepowered.asm.mixin.transformer.ext.extensions;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -51,7 +50,8 @@ import org.spongepowered.asm.util.SignaturePrinter;
 import com.google.common.base.Charsets;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 
 /**
  * Checks whether interfaces declared on mixin target classes are actually fully
@@ -62,19 +62,32 @@ public class ExtensionCheckInterfaces implements IExtension {
     private static final String AUDIT_DIR = "audit";
     private static final String IMPL_REPORT_FILENAME = "mixin_implementation_report";
     private static final String IMPL_REPORT_CSV_FILENAME = ExtensionCheckInterfaces.IMPL_REPORT_FILENAME + ".csv";
+    private static final String IMPL_REPORT_JSONL_FILENAME = ExtensionCheckInterfaces.IMPL_REPORT_FILENAME + ".jsonl";
     private static final String IMPL_REPORT_TXT_FILENAME = ExtensionCheckInterfaces.IMPL_REPORT_FILENAME + ".txt";
 
     private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    private static final Gson GSON = new Gson();
 
     /**
-     * CSV Report file
+     * Folder which reports are written to
+     */
+    private final File auditDir;
+
+    /**
+     * Machine-readable report, csv or jsonl depending on the selected format
+     */
+    private ReportWriter csv;
+    
+    /**
+     * True if the machine-readable report is in jsonl format
      */
-    private final File csv;
+    private boolean jsonl;
 
     /**
-     * Text Report file
+     * Text Report
      */
-    private final File report;
+    private ReportWriter report;
 
     /**
      * Methods from interfaces that are already in the class before mixins are
@@ -94,34 +107,47 @@ public class ExtensionCheckInterfaces implements IExtension {
     private boolean started = false;
 
     public ExtensionCheckInterfaces() {
-        File debugOutputFolder = new File(Constants.DEBUG_OUTPUT_DIR, ExtensionCheckInterfaces.AUDIT_DIR);
-        this.csv = new File(debugOutputFolder, ExtensionCheckInterfaces.IMPL_REPORT_CSV_FILENAME);
-        this.report = new File(debugOutputFolder, ExtensionCheckInterfaces.IMPL_REPORT_TXT_FILENAME);
+        this.auditDir = new File(Constants.DEBUG_OUTPUT_DIR, ExtensionCheckInterfaces.AUDIT_DIR);
     }
     
     /**
-     * Delayed creation of CSV so the dir doesn't get created when the extension
-     * is inactive
+     * Delayed creation of reports so the dir doesn't get created when the
+     * extension is inactive
      */
-    private void start() {
+    private synchronized void start() {
         if (this.started) {
             return;
         }
         
         this.started = true;
-        this.csv.getParentFile().mkdirs();
-
-        try {
-            Files.write("Class,Method,Signature,Interface\n", this.csv, Charsets.ISO_8859_1);
-        } catch (IOException ex) {
-            // well this sucks
+        
+        MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+        boolean async = environment.getOption(Option.CHECK_IMPLEMENTS_ASYNC);
+        this.jsonl = "jsonl".equalsIgnoreCase(environment.getOptionValue(Option.CHECK_IMPLEMENTS_FORMAT));
+        
+        if (this.jsonl) {
+            this.csv = new ReportWriter(new File(this.auditDir, ExtensionCheckInterfaces.IMPL_REPORT_JSONL_FILENAME), Charsets.UTF_8, async,
+                    ExtensionCheckInterfaces.logger);
+        } else {
+            this.csv = new ReportWriter(new File(this.auditDir, ExtensionCheckInterfaces.IMPL_REPORT_CSV_FILENAME), Charsets.ISO_8859_1, async,
+                    ExtensionCheckInterfaces.logger);
+            this.csv.write("Class,Method,Signature,Interface\n");
         }
-
-        try {
-            String dateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-            Files.write("Mixin Implementation Report generated on " + dateTime + "\n", this.report, Charsets.ISO_8859_1);
-        } catch (IOException ex) {
-            // hmm :(
+        
+        this.report = new ReportWriter(new File(this.auditDir, ExtensionCheckInterfaces.IMPL_REPORT_TXT_FILENAME), Charsets.ISO_8859_1, async,
+                ExtensionCheckInterfaces.logger);
+        String dateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        this.report.write("Mixin Implementation Report generated on " + dateTime + "\n");
+    }
+    
+    /**
+     * Flush the reports to disk, called at the end of an audit. Reports are
+     * also flushed at shutdown.
+     */
+    public synchronized void flush() {
+        if (this.started) {
+            this.csv.flush();
+            this.report.flush();
         }
     }
     
@@ -217,32 +243,25 @@ public class ExtensionCheckInterfaces implements IExtension {
     }
 
     private void appendToCSVReport(String className, Method method, String iface) {
-        try {
-            Files.append(String.format("%s,%s,%s,%s\n", className, method.getName(), method.getDesc(), iface), this.csv, Charsets.ISO_8859_1);
-        } catch (IOException ex) {
-            // Not the end of the world
+        if (this.jsonl) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("class", className);
+            entry.addProperty("method", method.getName());
+            entry.addProperty("signature", method.getDesc());
+            entry.addProperty("interface", iface);
+            this.csv.write(ExtensionCheckInterfaces.GSON.toJson(entry) + "\n");
+        } else {
+            this.csv.write(className + "," + method.getName() + "," + method.getDesc() + "," + iface + "\n");
         }
     }
 
     private void appendToTextReport(PrettyPrinter printer) {
-        FileOutputStream fos = null;
-
-        try {
-            fos = new FileOutputStream(this.report, true);
-            PrintStream stream = new PrintStream(fos);
-            stream.print("\n");
-            printer.print(stream);
-        } catch (Exception ex) {
-            // never mind
-        } finally {
-            if (fos != null) {
-                try {
-                    fos.close();
-                } catch (IOException ex) {
-                    ExtensionCheckInterfaces.logger.catching(ex);
-                }
-            }
-        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(bytes);
+        stream.print("\n");
+        printer.print(stream);
+        stream.flush();
+        this.report.write(bytes.toString());
     }
 
 }
@@ -24,16 +24,28 @@
  */
 package org.spongepowered.asm.mixin.transformer.ext.extensions;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.spongepowered.asm.logging.ILogger;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
 import org.spongepowered.asm.mixin.transformer.ext.IDecompiler;
 import org.spongepowered.asm.mixin.transformer.ext.IExtension;
 import org.spongepowered.asm.mixin.transformer.ext.ITargetClassContext;
@@ -53,7 +65,117 @@ public class ExtensionClassExporter implements IExtension {
     private static final String DECOMPILER_CLASS = "org.spongepowered.asm.mixin.transformer.debug.RuntimeDecompiler";
     
     private static final String EXPORT_CLASS_DIR = "class";
+    private static final String EXPORT_CLASS_ARCHIVE = "class.jar";
     private static final String EXPORT_JAVA_DIR = "java";
+    
+    /**
+     * Number of exports which can be queued for the background writer before
+     * exporting threads write their own classes
+     */
+    private static final int EXPORT_QUEUE_SIZE = 256;
+    
+    /**
+     * Time to wait for queued exports to be written at shutdown
+     */
+    private static final int EXPORT_FLUSH_TIMEOUT_SECONDS = 60;
+    
+    private static final ThreadFactory EXPORT_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Mixin Class Exporter");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    };
+    
+    /**
+     * Class writer used to compute frames for exported classes on the
+     * background writer. Common superclasses are resolved only from {@link
+     * ClassInfo} metadata which is already cached, so that the writer never
+     * loads classes off the transforming thread. Types whose hierarchy is not
+     * cached resolve to <tt>java/lang/Object</tt>, which may produce imprecise
+     * frames but is sufficient for inspecting and decompiling the export.
+     */
+    static class ExportClassWriter extends ClassWriter {
+        
+        ExportClassWriter() {
+            super(ClassWriter.COMPUTE_FRAMES);
+        }
+        
+        /* (non-Javadoc)
+         * @see org.objectweb.asm.ClassWriter#getCommonSuperClass(
+         *      java.lang.String, java.lang.String)
+         */
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            Set<String> superClasses = new HashSet<String>();
+            for (ClassInfo info = ExportClassWriter.fromCache(type1); info != null; info = ExportClassWriter.fromCache(info.getSuperName())) {
+                if (info.isInterface()) {
+                    return Constants.OBJECT;
+                }
+                superClasses.add(info.getName());
+            }
+            for (ClassInfo info = ExportClassWriter.fromCache(type2); info != null; info = ExportClassWriter.fromCache(info.getSuperName())) {
+                if (info.isInterface()) {
+                    return Constants.OBJECT;
+                }
+                if (superClasses.contains(info.getName())) {
+                    return info.getName();
+                }
+            }
+            return Constants.OBJECT;
+        }
+        
+        private static ClassInfo fromCache(String className) {
+            return className != null ? ClassInfo.fromCache(className) : null;
+        }
+        
+    }
+    
+    /**
+     * A class queued for export. The tree will continue to be modified after
+     * export and is not safe to read elsewhere, so the class is written
+     * without frames on the exporting thread. Frames for the exported copy
+     * are then computed by the background writer, along with writing the
+     * class (and decompiling it).
+     */
+    class ExportTask implements Runnable {
+        
+        private final String fileName;
+        
+        private final byte[] bytecode;
+        
+        private final boolean computeFrames;
+        
+        ExportTask(String fileName, byte[] bytecode, boolean computeFrames) {
+            this.fileName = fileName;
+            this.bytecode = bytecode;
+            this.computeFrames = computeFrames;
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] bytecode = this.computeFrames ? ExtensionClassExporter.computeFrames(this.fileName, this.bytecode) : this.bytecode;
+                if (ExtensionClassExporter.this.archive != null) {
+                    ExtensionClassExporter.this.writeArchiveEntry(this.fileName + ".class", bytecode);
+                    return;
+                }
+                
+                File outputFile = ExtensionClassExporter.this.writeClassFile(this.fileName, bytecode);
+                IDecompiler decompiler = ExtensionClassExporter.this.decompiler;
+                if (decompiler != null) {
+                    synchronized (decompiler) {
+                        decompiler.decompile(outputFile);
+                    }
+                }
+            } catch (Exception ex) {
+                ExtensionClassExporter.logger.debug("Error exporting class {}: {} {}", this.fileName, ex.getClass().getName(), ex.getMessage());
+            }
+        }
+        
+    }
 
     /**
      * Logger
@@ -70,6 +192,27 @@ public class ExtensionClassExporter implements IExtension {
      */
     private final IDecompiler decompiler;
     
+    /**
+     * Background writer for exported classes, created on first use if
+     * asynchronous export is enabled
+     */
+    private ThreadPoolExecutor executor;
+    
+    /**
+     * Archive to export classes to, if exporting to an archive
+     */
+    private ZipOutputStream archive;
+    
+    /**
+     * Entries written to the archive so far
+     */
+    private final Set<String> archiveEntries = new HashSet<String>();
+    
+    /**
+     * True once the export pipeline has been initialised
+     */
+    private boolean initialised;
+    
     public ExtensionClassExporter(MixinEnvironment env) {
         this.decompiler = this.initDecompiler(env, new File(Constants.DEBUG_OUTPUT_DIR, ExtensionClassExporter.EXPORT_JAVA_DIR));
 
@@ -80,6 +223,78 @@ public class ExtensionClassExporter implements IExtension {
         }
     }
     
+    /**
+     * Initialise the background writer and archive the first time a class is
+     * exported, the exporter is always created but the pipeline is only
+     * needed when classes are actually exported
+     */
+    private synchronized void initPipeline(MixinEnvironment env) {
+        if (this.initialised) {
+            return;
+        }
+        this.initialised = true;
+        
+        if (env.getOption(Option.DEBUG_EXPORT_ARCHIVE)) {
+            if (this.decompiler != null) {
+                ExtensionClassExporter.logger.info("Exporting classes to {} because the decompiler is active",
+                        this.classExportDir.getAbsolutePath());
+            } else {
+                File archiveFile = new File(Constants.DEBUG_OUTPUT_DIR, ExtensionClassExporter.EXPORT_CLASS_ARCHIVE);
+                try {
+                    archiveFile.getParentFile().mkdirs();
+                    this.archive = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile)));
+                } catch (IOException ex) {
+                    ExtensionClassExporter.logger.warn("Could not open export archive {}, exporting classes to {}. {}: {}",
+                            archiveFile.getAbsolutePath(), this.classExportDir.getAbsolutePath(), ex.getClass().getSimpleName(), ex.getMessage());
+                }
+            }
+        }
+        
+        if (env.getOption(Option.DEBUG_EXPORT_ASYNC)) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(ExtensionClassExporter.EXPORT_QUEUE_SIZE),
+                    ExtensionClassExporter.EXPORT_THREAD_FACTORY, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+        
+        if (this.executor != null || this.archive != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread("Mixin Export Flush") {
+                @Override
+                public void run() {
+                    ExtensionClassExporter.this.flush();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Wait for queued exports to be written and close the export archive, if
+     * any. Called at shutdown.
+     */
+    public void flush() {
+        ThreadPoolExecutor executor = this.executor;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(ExtensionClassExporter.EXPORT_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    ExtensionClassExporter.logger.warn("Timed out waiting for {} queued class exports to be written", executor.getQueue().size());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        synchronized (this.archiveEntries) {
+            if (this.archive != null) {
+                try {
+                    this.archive.close();
+                } catch (IOException ex) {
+                    ExtensionClassExporter.logger.debug("Error closing export archive: {}", ex.getMessage());
+                }
+                this.archive = null;
+            }
+        }
+    }
+    
     public boolean isDecompilerActive() {
         return this.decompiler != null;
     }
@@ -136,10 +351,27 @@ public class ExtensionClassExporter implements IExtension {
             String filter = env.getOptionValue(Option.DEBUG_EXPORT_FILTER);
             if (force || filter == null || this.applyFilter(filter, name)) {
                 Section exportTimer = Profiler.getProfiler("export").begin("debug.export");
+                this.initPipeline(env);
                 
-                File outputFile = this.dumpClass(name.replace('.', '/'), classNode);
-                if (this.decompiler != null) {
-                    this.decompiler.decompile(outputFile);
+                String fileName = name.replace('.', '/');
+                if (this.executor != null || this.archive != null) {
+                    // Serialise the tree here since it is not safe to read
+                    // elsewhere, frames are left to the background writer
+                    boolean async = this.executor != null && !this.executor.isShutdown();
+                    byte[] bytecode = ExtensionClassExporter.getClassBytes(classNode, !async);
+                    if (bytecode != null) {
+                        ExportTask task = new ExportTask(fileName, bytecode, async);
+                        if (async) {
+                            this.executor.execute(task);
+                        } else {
+                            task.run();
+                        }
+                    }
+                } else {
+                    File outputFile = this.dumpClass(fileName, classNode);
+                    if (this.decompiler != null) {
+                        this.decompiler.decompile(outputFile);
+                    }
                 }
                 exportTimer.end();
             }
@@ -166,7 +398,45 @@ public class ExtensionClassExporter implements IExtension {
         }
         return outputFile;
     }
-
+    
+    File writeClassFile(String fileName, byte[] bytecode) throws IOException {
+        File outputFile = new File(this.classExportDir, fileName + ".class");
+        outputFile.getParentFile().mkdirs();
+        Files.write(bytecode, outputFile);
+        return outputFile;
+    }
+    
+    void writeArchiveEntry(String entryName, byte[] bytecode) throws IOException {
+        synchronized (this.archiveEntries) {
+            if (this.archive == null) {
+                return;
+            }
+            if (!this.archiveEntries.add(entryName)) {
+                ExtensionClassExporter.logger.debug("Skipping duplicate export of {}", entryName);
+                return;
+            }
+            this.archive.putNextEntry(new ZipEntry(entryName));
+            this.archive.write(bytecode);
+            this.archive.closeEntry();
+        }
+    }
+    
+    /**
+     * Compute frames for exported bytecode which was written without them,
+     * returns the original bytecode if frames cannot be computed
+     */
+    static byte[] computeFrames(String fileName, byte[] bytecode) {
+        try {
+            ClassWriter cw = new ExportClassWriter();
+            new ClassReader(bytecode).accept(cw, ClassReader.SKIP_FRAMES);
+            return cw.toByteArray();
+        } catch (Exception ex) {
+            ExtensionClassExporter.logger.warn("Computing frames for exported class {} failed! Exporting raw class. {}: {}", fileName,
+                    ex.getClass().getSimpleName(), ex.getMessage());
+            return bytecode;
+        }
+    }
+    
     private static byte[] getClassBytes(ClassNode classNode, boolean computeFrames) {
         byte[] bytes = null;
         try {
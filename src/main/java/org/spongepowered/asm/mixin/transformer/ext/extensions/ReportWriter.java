@@ -0,0 +1,192 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer.ext.extensions;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+import org.spongepowered.asm.logging.ILogger;
+
+/**
+ * Buffered writer for report files which are appended to over the lifetime of
+ * the application. The file is opened once when the first text is written and
+ * remains open until the report is closed or the VM shuts down, text is
+ * optionally written by a background thread.
+ */
+class ReportWriter {
+    
+    private static final ThreadFactory REPORT_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Mixin Report Writer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+    
+    private final File file;
+    
+    private final Charset charset;
+    
+    private final ILogger logger;
+    
+    /**
+     * Background writer, null if writing synchronously
+     */
+    private final ExecutorService executor;
+    
+    private Writer writer;
+    
+    private boolean closed;
+
+    ReportWriter(File file, Charset charset, boolean async, ILogger logger) {
+        this.file = file;
+        this.charset = charset;
+        this.logger = logger;
+        this.executor = async ? Executors.newSingleThreadExecutor(ReportWriter.REPORT_THREAD_FACTORY) : null;
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Mixin Report Flush") {
+            @Override
+            public void run() {
+                ReportWriter.this.close();
+            }
+        });
+    }
+    
+    File getFile() {
+        return this.file;
+    }
+    
+    /**
+     * Append text to the report. Once the report is closed (for example by
+     * the shutdown hook) text is handled synchronously, which discards it.
+     * 
+     * @param text text to append
+     */
+    void write(final String text) {
+        if (this.executor == null || this.executor.isShutdown()) {
+            this.append(text);
+            return;
+        }
+        
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ReportWriter.this.append(text);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Closed concurrently
+            this.append(text);
+        }
+    }
+    
+    /**
+     * Flush text written so far to disk, waits for any queued text to be
+     * written if writing in the background
+     */
+    void flush() {
+        if (this.executor == null || this.executor.isShutdown()) {
+            this.flushWriter();
+            return;
+        }
+        
+        try {
+            this.executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    ReportWriter.this.flushWriter();
+                }
+            }).get();
+        } catch (RejectedExecutionException ex) {
+            // Closed concurrently
+            this.flushWriter();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            this.logger.debug("Error flushing report {}: {}", this.file, ex.getMessage());
+        }
+    }
+    
+    /**
+     * Flush and close the report
+     */
+    void close() {
+        if (this.executor != null && !this.executor.isShutdown()) {
+            this.flush();
+            this.executor.shutdown();
+        }
+        
+        synchronized (this) {
+            if (this.writer != null) {
+                try {
+                    this.writer.close();
+                } catch (IOException ex) {
+                    this.logger.debug("Error closing report {}: {}", this.file, ex.getMessage());
+                }
+                this.writer = null;
+            }
+            this.closed = true;
+        }
+    }
+
+    synchronized void append(String text) {
+        if (this.closed) {
+            return;
+        }
+        
+        try {
+            if (this.writer == null) {
+                this.file.getParentFile().mkdirs();
+                this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.file), this.charset));
+            }
+            this.writer.write(text);
+        } catch (IOException ex) {
+            this.logger.debug("Error writing report {}: {}", this.file, ex.getMessage());
+        }
+    }
+    
+    synchronized void flushWriter() {
+        if (this.writer != null) {
+            try {
+                this.writer.flush();
+            } catch (IOException ex) {
+                this.logger.debug("Error flushing report {}: {}", this.file, ex.getMessage());
+            }
+        }
+    }
+
+}
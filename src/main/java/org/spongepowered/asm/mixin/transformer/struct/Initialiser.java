@@ -26,12 +26,11 @@ package org.spongepowered.asm.mixin.transformer.struct;
 
 import java.util.Deque;
 import java.util.Locale;
-import java.util.Map;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.JumpInsnNode;
-import org.objectweb.asm.tree.LabelNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.logging.ILogger;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -191,17 +190,15 @@ public class Initialiser {
             return;
         }
 
-        Map<LabelNode, LabelNode> labels = Bytecode.cloneLabels(ctor.insns);
         for (AbstractInsnNode node : this.insns) {
-            if (node instanceof LabelNode) {
-                continue;
-            }
             if (node instanceof JumpInsnNode) {
                 throw new InvalidMixinException(this.mixin, "Unsupported JUMP opcode in initialiser in " + this.mixin);
             }
-            
-            ctor.insertBefore(marker, node.clone(labels));
         }
+
+        InsnList insns = new InsnList();
+        Bytecode.cloneInsns(this.insns.iterator(), insns, false);
+        ctor.insertBefore(marker, insns);
     }
 
 }
@@ -26,17 +26,34 @@ package org.spongepowered.asm.obfuscation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.spongepowered.asm.mixin.extensibility.IRemapper;
 
 /**
  * Mixin environment remapper chain. Contains all remappers for the current
- * environment to facilitate remapping via all registered remappers.
+ * environment to facilitate remapping via all registered remappers. Results
+ * are memoised, since the same references are remapped repeatedly for every
+ * mixin applied, and the memoised results are discarded when a remapper is
+ * added to the chain.
  */
 public class RemapperChain implements IRemapper {
     
     private final List<IRemapper> remappers = new ArrayList<IRemapper>();
     
+    private final Map<String, String> methodNames = new ConcurrentHashMap<String, String>();
+    
+    private final Map<String, String> fieldNames = new ConcurrentHashMap<String, String>();
+    
+    private final Map<String, String> typeNames = new ConcurrentHashMap<String, String>();
+    
+    private final Map<String, String> unmappedTypeNames = new ConcurrentHashMap<String, String>();
+    
+    private final Map<String, String> descs = new ConcurrentHashMap<String, String>();
+    
+    private final Map<String, String> unmappedDescs = new ConcurrentHashMap<String, String>();
+    
     @Override
     public String toString() {
         return String.format("RemapperChain[%d]", this.remappers.size());
@@ -50,11 +67,38 @@ public class RemapperChain implements IRemapper {
      */
     public RemapperChain add(IRemapper remapper) {
         this.remappers.add(remapper);
+        this.clear();
         return this;
     }
+    
+    /**
+     * Discard memoised results, for example if the mappings used by one of
+     * the remappers in this chain have changed
+     */
+    public void clear() {
+        this.methodNames.clear();
+        this.fieldNames.clear();
+        this.typeNames.clear();
+        this.unmappedTypeNames.clear();
+        this.descs.clear();
+        this.unmappedDescs.clear();
+    }
 
     @Override
     public String mapMethodName(String owner, String name, String desc) {
+        if (this.remappers.isEmpty()) {
+            return name;
+        }
+        String key = owner + '.' + name + desc;
+        String result = this.methodNames.get(key);
+        if (result == null) {
+            result = this.computeMethodName(owner, name, desc);
+            this.methodNames.put(key, result);
+        }
+        return result;
+    }
+
+    private String computeMethodName(String owner, String name, String desc) {
         for (IRemapper remapper : this.remappers) {
             String newName = remapper.mapMethodName(owner, name, desc);
             if (newName != null && !newName.equals(name)) {
@@ -66,6 +110,19 @@ public class RemapperChain implements IRemapper {
 
     @Override
     public String mapFieldName(String owner, String name, String desc) {
+        if (this.remappers.isEmpty()) {
+            return name;
+        }
+        String key = owner + '.' + name + ':' + desc;
+        String result = this.fieldNames.get(key);
+        if (result == null) {
+            result = this.computeFieldName(owner, name, desc);
+            this.fieldNames.put(key, result);
+        }
+        return result;
+    }
+
+    private String computeFieldName(String owner, String name, String desc) {
         for (IRemapper remapper : this.remappers) {
             String newName = remapper.mapFieldName(owner, name, desc);
             if (newName != null && !newName.equals(name)) {
@@ -77,6 +134,18 @@ public class RemapperChain implements IRemapper {
 
     @Override
     public String map(String typeName) {
+        if (this.remappers.isEmpty() || typeName == null) {
+            return typeName;
+        }
+        String result = this.typeNames.get(typeName);
+        if (result == null) {
+            result = this.computeMap(typeName);
+            this.typeNames.put(typeName, result);
+        }
+        return result;
+    }
+
+    private String computeMap(String typeName) {
         for (IRemapper remapper : this.remappers) {
             String newName = remapper.map(typeName);
             if (newName != null && !newName.equals(typeName)) {
@@ -88,6 +157,18 @@ public class RemapperChain implements IRemapper {
     
     @Override
     public String unmap(String typeName) {
+        if (this.remappers.isEmpty() || typeName == null) {
+            return typeName;
+        }
+        String result = this.unmappedTypeNames.get(typeName);
+        if (result == null) {
+            result = this.computeUnmap(typeName);
+            this.unmappedTypeNames.put(typeName, result);
+        }
+        return result;
+    }
+
+    private String computeUnmap(String typeName) {
         for (IRemapper remapper : this.remappers) {
             String newName = remapper.unmap(typeName);
             if (newName != null && !newName.equals(typeName)) {
@@ -99,6 +180,18 @@ public class RemapperChain implements IRemapper {
     
     @Override
     public String mapDesc(String desc) {
+        if (this.remappers.isEmpty() || desc == null) {
+            return desc;
+        }
+        String result = this.descs.get(desc);
+        if (result == null) {
+            result = this.computeMapDesc(desc);
+            this.descs.put(desc, result);
+        }
+        return result;
+    }
+
+    private String computeMapDesc(String desc) {
         for (IRemapper remapper : this.remappers) {
             String newDesc = remapper.mapDesc(desc);
             if (newDesc != null && !newDesc.equals(desc)) {
@@ -110,6 +203,18 @@ public class RemapperChain implements IRemapper {
     
     @Override
     public String unmapDesc(String desc) {
+        if (this.remappers.isEmpty() || desc == null) {
+            return desc;
+        }
+        String result = this.unmappedDescs.get(desc);
+        if (result == null) {
+            result = this.computeUnmapDesc(desc);
+            this.unmappedDescs.put(desc, result);
+        }
+        return result;
+    }
+
+    private String computeUnmapDesc(String desc) {
         for (IRemapper remapper : this.remappers) {
             String newDesc = remapper.unmapDesc(desc);
             if (newDesc != null && !newDesc.equals(desc)) {
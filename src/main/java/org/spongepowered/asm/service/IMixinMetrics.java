@@ -0,0 +1,119 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service;
+
+/**
+ * Metrics sink which receives structured cost counters from the mixin
+ * pipeline, for example the time spent by each injector finding its targets
+ * or the time spent computing frames for each target class. Implementations
+ * can aggregate the counters internally for later export, or forward them to
+ * an underlying subsystem such as a flight recorder.
+ * 
+ * <p>Counters are recorded very frequently, implementations should therefore
+ * keep {@link #record} as cheap as possible and must be thread-safe.</p>
+ * 
+ * <p>This service component is entirely optional, services supply it by
+ * overriding {@link MixinServiceAbstract#getMixinMetrics} and can elect to
+ * return <tt>null</tt> if metrics should not be collected.</p>
+ */
+public interface IMixinMetrics {
+    
+    /**
+     * Counters recorded by the pipeline. Times are in nanoseconds.
+     */
+    public static enum Metric {
+        
+        /**
+         * Time spent applying a mixin to a target class, recorded per mixin
+         */
+        APPLY_TIME,
+        
+        /**
+         * Time spent by an injector locating injection points in its targets
+         */
+        FIND_TIME,
+        
+        /**
+         * Time spent by an injector performing pre-injection tasks, such as
+         * capturing local variables for callbacks
+         */
+        PREINJECT_TIME,
+        
+        /**
+         * Time spent by an injector performing injections
+         */
+        INJECT_TIME,
+        
+        /**
+         * Time spent by an injector analysing local variables, this time is
+         * also included in {@link #PREINJECT_TIME} or {@link #INJECT_TIME}
+         */
+        LOCALS_TIME,
+        
+        /**
+         * Time spent writing a target class, including computing its frames.
+         * Recorded per target class only
+         */
+        WRITE_TIME,
+        
+        /**
+         * Bytes allocated by the current thread whilst an injector was finding
+         * and injecting, only available on VMs which support allocation
+         * accounting
+         */
+        ALLOCATED_BYTES,
+        
+        /**
+         * Number of target methods scanned by an injector
+         */
+        TARGETS_SCANNED,
+        
+        /**
+         * Number of target instructions scanned by an injector
+         */
+        INSNS_SCANNED,
+        
+        /**
+         * Number of successful injections made by an injector
+         */
+        INJECTIONS
+        
+    }
+    
+    /**
+     * Record a counter value. Values for the same mixin, member and metric
+     * are accumulated.
+     * 
+     * @param mixin Mixin class name, or <tt>null</tt> for counters which only
+     *      apply to a target class
+     * @param member Mixin member (eg. injector handler) name, or <tt>null</tt>
+     *      for counters which apply to the mixin as a whole
+     * @param target Target class name
+     * @param metric Counter being recorded
+     * @param value Value to add
+     */
+    public abstract void record(String mixin, String member, String target, Metric metric, long value);
+
+}
@@ -35,11 +35,14 @@ import org.spongepowered.asm.launch.platform.IMixinPlatformServiceAgent;
 import org.spongepowered.asm.launch.platform.container.IContainerHandle;
 import org.spongepowered.asm.logging.ILogger;
 import org.spongepowered.asm.logging.LoggerAdapterDefault;
+import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.CompatibilityLevel;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
 import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.IConsumer;
 import org.spongepowered.asm.util.ReEntranceLock;
+import org.spongepowered.asm.util.perf.MetricsRecorder;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
@@ -168,6 +171,24 @@ public abstract class MixinServiceAbstract implements IMixinService {
     public void checkEnv(Object bootSource) {
     }
 
+    /**
+     * Return the metrics sink for this service. <b>This component is optional
+     * and is allowed to be <tt>null</tt> for services which do not support this
+     * functionality or when metrics collection is disabled.</b>
+     * 
+     * <p>By default, returns the built-in metrics recorder (which writes its
+     * counters to disk on shutdown) if the <tt>mixin.debug.metrics</tt> option
+     * is enabled, services can override this method to supply their own sink.
+     * Metrics are not collected for services which do not extend this class.
+     * </p>
+     */
+    public IMixinMetrics getMixinMetrics() {
+        if (MixinEnvironment.getCurrentEnvironment().getOption(Option.DEBUG_METRICS)) {
+            return MetricsRecorder.getInstance();
+        }
+        return null;
+    }
+
     /* (non-Javadoc)
      * @see org.spongepowered.asm.service.IMixinService#getReEntranceLock()
      */
@@ -26,7 +26,10 @@ package org.spongepowered.asm.transformers;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.mixin.transformer.ClassInfo;
+import org.spongepowered.asm.util.asm.ASM;
 
 /**
  * ClassWriter which resolves common superclasses using Mixin's metadata instead
@@ -50,5 +53,26 @@ public class MixinClassWriter extends ClassWriter {
     protected String getCommonSuperClass(final String type1, final String type2) {
         return ClassInfo.getCommonSuperClass(type1, type2).getName();
     }
+    
+    /**
+     * Compute frames and stack sizes for a single method in isolation. The
+     * method is written into a stub of its owner class using a writer which
+     * computes frames, and then read back into a new method node.
+     * 
+     * @param owner Class which owns the method, only the header is used
+     * @param method Method to compute frames for
+     * @return New method node containing the method with computed frames
+     */
+    public static MethodNode computeFrames(ClassNode owner, MethodNode method) {
+        ClassWriter writer = new MixinClassWriter(ClassWriter.COMPUTE_FRAMES);
+        String[] interfaces = owner.interfaces != null ? owner.interfaces.toArray(new String[owner.interfaces.size()]) : null;
+        writer.visit(owner.version, owner.access, owner.name, null, owner.superName, interfaces);
+        method.accept(writer);
+        writer.visitEnd();
+        
+        ClassNode stub = new ClassNode(ASM.API_VERSION);
+        new ClassReader(writer.toByteArray()).accept(stub, ClassReader.EXPAND_FRAMES);
+        return stub.methods.get(0);
+    }
 
 }
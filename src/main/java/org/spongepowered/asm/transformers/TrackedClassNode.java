@@ -0,0 +1,331 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.transformers;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+/**
+ * ClassNode which records the state of each of its methods when read, so that
+ * methods which were modified by transformers can be distinguished from those
+ * which were left untouched when the class is written. Untouched methods can
+ * then retain their original frames rather than having them recomputed.
+ * 
+ * <p>The node can also retain the {@link ClassReader} it was read from, which
+ * allows the class writer to reuse the original constant pool and to copy
+ * untouched methods verbatim from the original bytecode.</p>
+ * 
+ * <p>A method is considered modified if it was added after the snapshot was
+ * taken, if its signature, access, exceptions, annotations or stack sizes
+ * changed, if its local variables or try-catch blocks changed, or if its
+ * instruction list no longer contains exactly the same instruction instances,
+ * with the same opcodes and operands, in the same order. Operands are compared
+ * because transformers frequently modify instructions in place, for example
+ * to change the owner of a field or method reference.</p>
+ */
+public class TrackedClassNode extends ClassNode {
+    
+    /**
+     * Snapshot of a single method
+     */
+    static final class MethodState {
+        
+        private final String name;
+        private final String desc;
+        private final int access;
+        private final int exceptions;
+        private final int annotations;
+        private final int tryCatchBlocks;
+        private final int localVariables;
+        private final int maxStack;
+        private final int maxLocals;
+        private final InsnList instructions;
+        private final AbstractInsnNode[] insns;
+        private final int[] opcodes;
+        private final Object[][] operands;
+        private final Object[][] tryCatchOperands;
+        private final Object[][] localVariableOperands;
+
+        MethodState(MethodNode method) {
+            this.name = method.name;
+            this.desc = method.desc;
+            this.access = method.access;
+            this.exceptions = TrackedClassNode.size(method.exceptions);
+            this.annotations = TrackedClassNode.countAnnotations(method);
+            this.tryCatchBlocks = TrackedClassNode.size(method.tryCatchBlocks);
+            this.localVariables = TrackedClassNode.size(method.localVariables);
+            this.maxStack = method.maxStack;
+            this.maxLocals = method.maxLocals;
+            this.instructions = method.instructions;
+            this.insns = method.instructions.toArray();
+            this.opcodes = new int[this.insns.length];
+            this.operands = new Object[this.insns.length][];
+            for (int i = 0; i < this.insns.length; i++) {
+                this.opcodes[i] = this.insns[i].getOpcode();
+                this.operands[i] = MethodState.getOperands(this.insns[i]);
+            }
+            this.tryCatchOperands = MethodState.getTryCatchOperands(method);
+            this.localVariableOperands = MethodState.getLocalVariableOperands(method);
+        }
+        
+        boolean isModified(MethodNode method) {
+            if (!this.name.equals(method.name) || !this.desc.equals(method.desc) || this.access != method.access
+                    || this.exceptions != TrackedClassNode.size(method.exceptions)
+                    || this.annotations != TrackedClassNode.countAnnotations(method)
+                    || this.tryCatchBlocks != TrackedClassNode.size(method.tryCatchBlocks)
+                    || this.localVariables != TrackedClassNode.size(method.localVariables)
+                    || this.maxStack != method.maxStack || this.maxLocals != method.maxLocals
+                    || this.instructions != method.instructions || this.insns.length != method.instructions.size()) {
+                return true;
+            }
+            
+            int index = 0;
+            for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext(), index++) {
+                if (insn != this.insns[index] || insn.getOpcode() != this.opcodes[index]
+                        || !Arrays.deepEquals(this.operands[index], MethodState.getOperands(insn))) {
+                    return true;
+                }
+            }
+            return !Arrays.deepEquals(this.tryCatchOperands, MethodState.getTryCatchOperands(method))
+                    || !Arrays.deepEquals(this.localVariableOperands, MethodState.getLocalVariableOperands(method));
+        }
+        
+        /**
+         * Capture the operands of an instruction. Mutable collections and
+         * arrays are copied so that changes made to them in place are
+         * detected.
+         */
+        static Object[] getOperands(AbstractInsnNode insn) {
+            switch (insn.getType()) {
+                case AbstractInsnNode.INT_INSN:
+                    return new Object[] { ((IntInsnNode)insn).operand };
+                case AbstractInsnNode.VAR_INSN:
+                    return new Object[] { ((VarInsnNode)insn).var };
+                case AbstractInsnNode.TYPE_INSN:
+                    return new Object[] { ((TypeInsnNode)insn).desc };
+                case AbstractInsnNode.FIELD_INSN:
+                    FieldInsnNode fieldInsn = (FieldInsnNode)insn;
+                    return new Object[] { fieldInsn.owner, fieldInsn.name, fieldInsn.desc };
+                case AbstractInsnNode.METHOD_INSN:
+                    MethodInsnNode methodInsn = (MethodInsnNode)insn;
+                    return new Object[] { methodInsn.owner, methodInsn.name, methodInsn.desc, methodInsn.itf };
+                case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+                    InvokeDynamicInsnNode dynInsn = (InvokeDynamicInsnNode)insn;
+                    return new Object[] { dynInsn.name, dynInsn.desc, dynInsn.bsm, MethodState.copy(dynInsn.bsmArgs) };
+                case AbstractInsnNode.JUMP_INSN:
+                    return new Object[] { ((JumpInsnNode)insn).label };
+                case AbstractInsnNode.LDC_INSN:
+                    return new Object[] { ((LdcInsnNode)insn).cst };
+                case AbstractInsnNode.IINC_INSN:
+                    IincInsnNode iincInsn = (IincInsnNode)insn;
+                    return new Object[] { iincInsn.var, iincInsn.incr };
+                case AbstractInsnNode.TABLESWITCH_INSN:
+                    TableSwitchInsnNode tableSwitch = (TableSwitchInsnNode)insn;
+                    return new Object[] { tableSwitch.min, tableSwitch.max, tableSwitch.dflt, MethodState.copy(tableSwitch.labels) };
+                case AbstractInsnNode.LOOKUPSWITCH_INSN:
+                    LookupSwitchInsnNode lookupSwitch = (LookupSwitchInsnNode)insn;
+                    return new Object[] { lookupSwitch.dflt, MethodState.copy(lookupSwitch.keys), MethodState.copy(lookupSwitch.labels) };
+                case AbstractInsnNode.MULTIANEWARRAY_INSN:
+                    MultiANewArrayInsnNode multiANewArray = (MultiANewArrayInsnNode)insn;
+                    return new Object[] { multiANewArray.desc, multiANewArray.dims };
+                case AbstractInsnNode.FRAME:
+                    FrameNode frame = (FrameNode)insn;
+                    return new Object[] { frame.type, MethodState.copy(frame.local), MethodState.copy(frame.stack) };
+                case AbstractInsnNode.LINE:
+                    LineNumberNode line = (LineNumberNode)insn;
+                    return new Object[] { line.line, line.start };
+                default:
+                    return null;
+            }
+        }
+        
+        static Object[][] getTryCatchOperands(MethodNode method) {
+            int size = TrackedClassNode.size(method.tryCatchBlocks);
+            Object[][] operands = new Object[size][];
+            for (int i = 0; i < size; i++) {
+                TryCatchBlockNode tryCatchBlock = method.tryCatchBlocks.get(i);
+                operands[i] = new Object[] { tryCatchBlock.start, tryCatchBlock.end, tryCatchBlock.handler, tryCatchBlock.type };
+            }
+            return operands;
+        }
+        
+        static Object[][] getLocalVariableOperands(MethodNode method) {
+            int size = TrackedClassNode.size(method.localVariables);
+            Object[][] operands = new Object[size][];
+            for (int i = 0; i < size; i++) {
+                LocalVariableNode local = method.localVariables.get(i);
+                operands[i] = new Object[] { local.name, local.desc, local.signature, local.start, local.end, local.index };
+            }
+            return operands;
+        }
+        
+        private static Object[] copy(List<?> list) {
+            return list != null ? list.toArray() : null;
+        }
+        
+        private static Object[] copy(Object[] array) {
+            return array != null ? array.clone() : null;
+        }
+        
+    }
+    
+    /**
+     * Method snapshots, null until {@link #snapshot} is called
+     */
+    private Map<MethodNode, MethodState> methodStates;
+    
+    /**
+     * Class version when the snapshot was taken
+     */
+    private int snapshotVersion;
+    
+    /**
+     * Reader this node was read from, if retained
+     */
+    private ClassReader classReader;
+
+    public TrackedClassNode(int api) {
+        super(api);
+    }
+    
+    /**
+     * Retain the reader which this node was read from
+     * 
+     * @param classReader Class reader
+     */
+    void setClassReader(ClassReader classReader) {
+        this.classReader = classReader;
+    }
+    
+    /**
+     * Get the reader this node was read from, if retained
+     */
+    ClassReader getClassReader() {
+        return this.classReader;
+    }
+    
+    /**
+     * Release the retained reader and method snapshots once the node has been
+     * written, since the node itself may be retained for some time afterwards
+     */
+    void release() {
+        this.classReader = null;
+        this.methodStates = null;
+    }
+    
+    /**
+     * Record the current state of all methods in this class, should be called
+     * once the class has been read
+     */
+    public void snapshot() {
+        this.snapshotVersion = this.version;
+        this.methodStates = new IdentityHashMap<MethodNode, MethodState>();
+        for (MethodNode method : this.methods) {
+            this.methodStates.put(method, new MethodState(method));
+        }
+    }
+    
+    /**
+     * Get whether a snapshot has been taken
+     */
+    public boolean isTracking() {
+        return this.methodStates != null;
+    }
+    
+    /**
+     * Get whether the class version was changed since the snapshot was taken,
+     * for example because a mixin required a newer class file version. Frames
+     * in untouched methods cannot be retained in this case since the original
+     * class may not have required them.
+     */
+    public boolean isVersionChanged() {
+        return this.version != this.snapshotVersion;
+    }
+    
+    /**
+     * Get whether the specified method was added or modified since the
+     * snapshot was taken. Always returns <tt>true</tt> if no snapshot exists.
+     * 
+     * @param method Method to check
+     * @return true if the method is new or was modified
+     */
+    public boolean isModified(MethodNode method) {
+        if (this.methodStates == null) {
+            return true;
+        }
+        MethodState state = this.methodStates.get(method);
+        return state == null || state.isModified(method);
+    }
+
+    /**
+     * Get the number of methods in this class which were added or modified
+     * since the snapshot was taken
+     */
+    public int getModifiedCount() {
+        int count = 0;
+        for (MethodNode method : this.methods) {
+            if (this.isModified(method)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static int size(List<?> list) {
+        return list != null ? list.size() : 0;
+    }
+    
+    static int countAnnotations(MethodNode method) {
+        return TrackedClassNode.size(method.visibleAnnotations) + TrackedClassNode.size(method.invisibleAnnotations)
+                + TrackedClassNode.size(method.visibleTypeAnnotations) + TrackedClassNode.size(method.invisibleTypeAnnotations)
+                + method.visibleAnnotableParameterCount + method.invisibleAnnotableParameterCount
+                + (method.annotationDefault != null ? 1 : 0);
+    }
+
+}
@@ -24,25 +24,38 @@
  */
 package org.spongepowered.asm.transformers;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.service.ILegacyClassTransformer;
+import org.spongepowered.asm.util.asm.ASM;
 
 /**
  * Base class for transformers which work with ASM tree model
  */
 public abstract class TreeTransformer implements ILegacyClassTransformer {
 
-    private ClassReader classReader;
-    private ClassNode classNode;
-
     /**
+     * Read a class tree without retaining the reader, see
+     * {@link #readClass(String, byte[], boolean)} to opt in to writing the
+     * class with the reader it was read from
+     * 
      * @param basicClass Original bytecode
      * @return tree
      */
     protected final ClassNode readClass(String className, byte[] basicClass) {
-        return this.readClass(className, basicClass, true);
+        return this.readClass(className, basicClass, false);
     }
     
     /**
@@ -52,13 +65,37 @@ public abstract class TreeTransformer implements ILegacyClassTransformer {
      * @return tree
      */
     protected final ClassNode readClass(String className, byte[] basicClass, boolean cacheReader) {
-        ClassReader classReader = new MixinClassReader(basicClass, className);
-        if (cacheReader) {
-            this.classReader = classReader;
+        return TreeTransformer.readClassNode(new MixinClassReader(basicClass, className), cacheReader);
+    }
+    
+    /**
+     * Read a class tree from the supplied reader. If only modified frames are
+     * to be recomputed then the returned node tracks modifications to its
+     * methods. If the reader is cached it is retained by the returned node
+     * rather than by the transformer, so that overlapping transformations
+     * cannot write a class using another class's reader.
+     * 
+     * @param classReader Reader to read from
+     * @param cacheReader True to retain the reader for use when writing the
+     *      returned node
+     * @return tree
+     */
+    protected static ClassNode readClassNode(ClassReader classReader, boolean cacheReader) {
+        boolean track = MixinEnvironment.getCurrentEnvironment().getOption(Option.COMPUTE_MODIFIED_FRAMES);
+        if (!track && !cacheReader) {
+            ClassNode classNode = new ClassNode();
+            classReader.accept(classNode, ClassReader.EXPAND_FRAMES);
+            return classNode;
         }
-
-        ClassNode classNode = new ClassNode();
+        
+        TrackedClassNode classNode = new TrackedClassNode(ASM.API_VERSION);
         classReader.accept(classNode, ClassReader.EXPAND_FRAMES);
+        if (track) {
+            classNode.snapshot();
+        }
+        if (cacheReader) {
+            classNode.setClassReader(classReader);
+        }
         return classNode;
     }
 
@@ -67,19 +104,102 @@ public abstract class TreeTransformer implements ILegacyClassTransformer {
      * @return generated bytecode
      */
     protected final byte[] writeClass(ClassNode classNode) {
-        // Use optimised writer for speed
-        if (this.classReader != null && this.classNode == classNode) {
-            this.classNode = null;
-            ClassWriter writer = new MixinClassWriter(this.classReader, ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
-            this.classReader = null;
-            classNode.accept(writer);
-            return writer.toByteArray();
+        if (classNode instanceof TrackedClassNode) {
+            TrackedClassNode trackedClassNode = (TrackedClassNode)classNode;
+            ClassReader classReader = trackedClassNode.getClassReader();
+            boolean retainFrames = trackedClassNode.isTracking() && !trackedClassNode.isVersionChanged()
+                    && (classNode.version & 0xFFFF) >= Opcodes.V1_6;
+            try {
+                // Use optimised writer for speed
+                if (classReader != null) {
+                    return TreeTransformer.writeClass(trackedClassNode, classReader, retainFrames);
+                }
+                if (retainFrames) {
+                    return TreeTransformer.writeTrackedClass(trackedClassNode);
+                }
+            } finally {
+                trackedClassNode.release();
+            }
         }
 
-        this.classNode = null;
-
         ClassWriter writer = new MixinClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
         classNode.accept(writer);
         return writer.toByteArray();
     }
+    
+    /**
+     * Write a class using the reader it was read from, which allows the
+     * writer to reuse the original constant pool. If methods are copied then
+     * the original bytecode of methods which were not modified since the class
+     * was read is copied verbatim by the writer, and only the methods which
+     * were added or modified are serialised from the tree. Copied methods are
+     * written after the serialised ones.
+     */
+    private static byte[] writeClass(final TrackedClassNode classNode, final ClassReader classReader, boolean copyMethods) {
+        final ClassWriter writer = new MixinClassWriter(classReader, ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        if (!copyMethods) {
+            classNode.accept(writer);
+            return writer.toByteArray();
+        }
+        
+        final Set<String> unmodified = new HashSet<String>();
+        for (MethodNode method : classNode.methods) {
+            if (!classNode.isModified(method)) {
+                unmodified.add(method.name + method.desc);
+            }
+        }
+        
+        classNode.accept(new ClassVisitor(ASM.API_VERSION, writer) {
+            
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                if (unmodified.contains(name + descriptor)) {
+                    return null;
+                }
+                return super.visitMethod(access, name, descriptor, signature, exceptions);
+            }
+            
+            @Override
+            public void visitEnd() {
+                // Returning the writer's own method visitor directly causes
+                // the reader to copy the method bytes without parsing them
+                classReader.accept(new ClassVisitor(ASM.API_VERSION) {
+                    @Override
+                    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                        if (unmodified.contains(name + descriptor)) {
+                            return writer.visitMethod(access, name, descriptor, signature, exceptions);
+                        }
+                        return null;
+                    }
+                }, 0);
+                super.visitEnd();
+            }
+            
+        });
+        return writer.toByteArray();
+    }
+
+    /**
+     * Write a class, computing frames and stack sizes only for the methods
+     * which were added or modified since the class was read. Untouched methods
+     * are written with their original frames and stack sizes.
+     */
+    private static byte[] writeTrackedClass(TrackedClassNode classNode) {
+        List<MethodNode> methods = classNode.methods;
+        List<MethodNode> computed = new ArrayList<MethodNode>(methods.size());
+        for (MethodNode method : methods) {
+            boolean hasCode = method.instructions.size() > 0;
+            computed.add(hasCode && classNode.isModified(method) ? MixinClassWriter.computeFrames(classNode, method) : method);
+        }
+        
+        ClassWriter writer = new MixinClassWriter(0);
+        classNode.methods = computed;
+        try {
+            classNode.accept(writer);
+        } finally {
+            classNode.methods = methods;
+        }
+        return writer.toByteArray();
+    }
+
 }
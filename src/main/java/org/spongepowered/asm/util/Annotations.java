@@ -262,6 +262,19 @@ public final class Annotations {
         method.invisibleAnnotations = Annotations.add(method.invisibleAnnotations, node);
     }
 
+    /**
+     * Set a invisible annotation of the specified class on the supplied class
+     * node
+     *
+     * @param classNode Target class
+     * @param annotationClass Type of annotation to search for
+     * @param value Values (interleaved key/value pairs) to set
+     */
+    public static void setInvisible(ClassNode classNode, Class<? extends Annotation> annotationClass, Object... value) {
+        AnnotationNode node = Annotations.createNode(Type.getDescriptor(annotationClass), value);
+        classNode.invisibleAnnotations = Annotations.add(classNode.invisibleAnnotations, node);
+    }
+
     /**
      * Create a new annotation node with the supplied values
      * 
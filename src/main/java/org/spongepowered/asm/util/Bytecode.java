@@ -27,7 +27,7 @@ package org.spongepowered.asm.util;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -155,6 +155,34 @@ public final class Bytecode {
             return this.isSuper ? "super" : "this";
         }
     }
+    
+    /**
+     * Identity map of labels to their clones used when cloning instructions.
+     * Clones are created on demand when a label is first looked up, so that
+     * instructions can be cloned in a single pass even when they refer to
+     * labels which appear later in the source.
+     */
+    static final class LabelMap extends IdentityHashMap<LabelNode, LabelNode> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * Maps which grow larger than this are discarded after use rather
+         * than being retained for reuse
+         */
+        static final int MAX_RETAINED_SIZE = 256;
+        
+        @Override
+        public LabelNode get(Object key) {
+            LabelNode clone = super.get(key);
+            if (clone == null && key instanceof LabelNode) {
+                clone = new LabelNode();
+                this.put((LabelNode)key, clone);
+            }
+            return clone;
+        }
+        
+    }
 
     /**
      * Integer constant opcodes
@@ -257,6 +285,16 @@ public final class Bytecode {
         null
     };
     
+    /**
+     * Label maps used when cloning instructions, reused by each thread
+     */
+    private static final ThreadLocal<LabelMap> LABEL_MAPS = new ThreadLocal<LabelMap>() {
+        @Override
+        protected LabelMap initialValue() {
+            return new LabelMap();
+        }
+    };
+    
     private Bytecode() {
         // utility class
     }
@@ -800,20 +838,53 @@ public final class Bytecode {
      * 
      * @param source instruction list
      * @return map of existing labels to their cloned counterparts
+     * @deprecated Use {@link #cloneInsns(Iterator, InsnList, boolean)}, which
+     *      clones instructions and their labels in a single pass
      */
+    @Deprecated
     public static Map<LabelNode, LabelNode> cloneLabels(InsnList source) {
-        Map<LabelNode, LabelNode> labels = new HashMap<LabelNode, LabelNode>();
-        
+        LabelMap labels = new LabelMap();
         for (Iterator<AbstractInsnNode> iter = source.iterator(); iter.hasNext();) {
             AbstractInsnNode insn = iter.next();
             if (insn instanceof LabelNode) {
-                labels.put((LabelNode)insn, new LabelNode(((LabelNode)insn).getLabel()));
+                labels.get(insn);
             }
         }
-        
         return labels;
     }
     
+    /**
+     * Clones the supplied instructions and appends the clones to the
+     * destination list in a single pass, without first collecting the labels
+     * in the source. Labels referenced by the cloned instructions are replaced
+     * by new labels, consistently for the whole sequence, using a label map
+     * which is reused by the calling thread. Callers typically clone into a
+     * new list and then splice it into the target method.
+     * 
+     * @param source instructions to clone
+     * @param dest list to append cloned instructions to
+     * @param includeLabels false to skip label nodes in the source, labels
+     *      referenced by other instructions are still replaced
+     */
+    public static void cloneInsns(Iterator<AbstractInsnNode> source, InsnList dest, boolean includeLabels) {
+        LabelMap labels = Bytecode.LABEL_MAPS.get();
+        try {
+            while (source.hasNext()) {
+                AbstractInsnNode insn = source.next();
+                if (includeLabels || !(insn instanceof LabelNode)) {
+                    dest.add(insn.clone(labels));
+                }
+            }
+        } finally {
+            if (labels.size() > LabelMap.MAX_RETAINED_SIZE) {
+                // Don't hold on to oversized tables, clearing them is not free
+                Bytecode.LABEL_MAPS.remove();
+            } else {
+                labels.clear();
+            }
+        }
+    }
+    
     /**
      * Generate a bytecode descriptor from the supplied types.
      * 
@@ -71,6 +71,11 @@ public class ClassSignature {
             }
             return this.generated;
         }
+        
+        @Override
+        public String toString() {
+            return this.generated != null ? this.generated.toString() : this.sig;
+        }
 
     }
     
@@ -1345,6 +1350,17 @@ public class ClassSignature {
         return ClassSignature.generate(classNode);
     }
 
+    /**
+     * Returns a lazy-evaluated signature object for the supplied signature
+     * string, the signature is not parsed until it is actually needed
+     * 
+     * @param signature signature to parse
+     * @return lazy-load handle
+     */
+    public static ClassSignature ofLazy(String signature) {
+        return new ClassSignature.Lazy(signature);
+    }
+
     /**
      * Generate a rough (raw) signature from the supplied classnode
      * 
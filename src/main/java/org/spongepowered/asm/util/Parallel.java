@@ -0,0 +1,86 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Utility class for running independent IO-bound tasks, such as reading
+ * resources, concurrently during startup
+ */
+public final class Parallel {
+    
+    /**
+     * Maximum number of threads used to run a batch of tasks
+     */
+    private static final int MAX_THREADS = 8;
+
+    private Parallel() {
+    }
+    
+    /**
+     * Run the supplied tasks on a temporary pool of daemon threads and wait
+     * for them all to complete. Tasks are expected to handle their own errors
+     * since results and exceptions are discarded. Fewer than two tasks are
+     * simply run on the calling thread.
+     * 
+     * @param name name for the pool threads
+     * @param tasks tasks to run
+     */
+    public static <T> void invokeAll(final String name, Collection<? extends Callable<T>> tasks) {
+        if (tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception ex) {
+                    // discarded, as for pooled tasks
+                }
+            }
+            return;
+        }
+        
+        int threads = Math.min(tasks.size(), Math.min(Runtime.getRuntime().availableProcessors() * 2, Parallel.MAX_THREADS));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -63,7 +63,7 @@ public class MixinVerifier extends SimpleVerifier {
             return this.currentSuperClass;
         }
         ClassInfo c = ClassInfo.forType(type, TypeLookup.ELEMENT_TYPE).getSuperClass();
-        return c == null ? null : Type.getType("L" + c.getName() + ";");
+        return c == null ? null : c.getType();
     }
 
     @Override
@@ -0,0 +1,682 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants;
+
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Counts invocations of injected handler methods at runtime. When enabled by
+ * the <tt>mixin.debug.sampleHandlers</tt> option, injectors register each
+ * handler call site they generate and emit a call to {@link #hit} (or to
+ * {@link #enter} and {@link #exit} if timings are being sampled) alongside
+ * the handler invocation. Counts are kept in striped counters so that hot
+ * sites called from several threads do not contend on a single value, and
+ * only one in every <tt>mixin.debug.sampleHandlers.timing</tt> invocations of
+ * each site is timed.
+ * 
+ * <p>Site ids are only meaningful in the VM which registered them, so
+ * instrumented code passes the site key along with the id. The id is used
+ * whilst it still identifies the same key, otherwise (for example in classes
+ * which were transformed ahead of time) the site is looked up by its key,
+ * which is slower but attributes the invocation correctly. Such sites are only
+ * sampled if sampling was also enabled for the classes transformed in the
+ * current VM.</p>
+ * 
+ * <p>The counts are available through the {@link InvocationSamplerMBean}
+ * and are written to the .mixin.out directory as json when the VM exits, and
+ * periodically if <tt>mixin.debug.sampleHandlers.dumpInterval</tt> is set.</p>
+ */
+public final class InvocationSampler {
+    
+    /**
+     * An instrumented handler call site
+     */
+    static final class Site {
+        
+        final int id;
+        
+        /**
+         * Site key, interned so that it is identical to the constant passed
+         * by instrumented code 
+         */
+        final String key;
+        
+        final String mixin;
+        
+        final String handler;
+        
+        final String target;
+        
+        Site(int id, String key, String mixin, String handler, String target) {
+            this.id = id;
+            this.key = key;
+            this.mixin = mixin;
+            this.handler = handler;
+            this.target = target;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s::%s -> %s", this.mixin, this.handler, this.target);
+        }
+        
+    }
+    
+    /**
+     * Snapshot of the counters for a site
+     */
+    static final class Count {
+        
+        final Site site;
+        
+        final long invocations;
+        
+        final long samples;
+        
+        final long sampledTime;
+        
+        Count(Site site, long invocations, long samples, long sampledTime) {
+            this.site = site;
+            this.invocations = invocations;
+            this.samples = samples;
+            this.sampledTime = sampledTime;
+        }
+        
+        long getAverageTime() {
+            return this.samples > 0 ? this.sampledTime / this.samples : 0L;
+        }
+        
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("mixin", this.site.mixin);
+            json.addProperty("handler", this.site.handler);
+            json.addProperty("target", this.site.target);
+            json.addProperty("invocations", Long.valueOf(this.invocations));
+            if (this.samples > 0) {
+                json.addProperty("samples", Long.valueOf(this.samples));
+                json.addProperty("avg_time_ns", Long.valueOf(this.getAverageTime()));
+                json.addProperty("estimated_time_ns", Long.valueOf(this.getAverageTime() * this.invocations));
+            }
+            return json;
+        }
+        
+        @Override
+        public String toString() {
+            if (this.samples > 0) {
+                return String.format(Locale.ROOT, "%d invocations, avg %d ns: %s", this.invocations, this.getAverageTime(), this.site);
+            }
+            return String.format(Locale.ROOT, "%d invocations: %s", this.invocations, this.site);
+        }
+        
+    }
+    
+    /**
+     * Counters for a contiguous block of site ids. Invocation counts are
+     * striped by thread, the stripes for a site are a segment apart so that
+     * threads incrementing the same site do not share a cache line. Timings
+     * are only recorded for sampled invocations and are not striped.
+     */
+    static final class Segment {
+        
+        final AtomicLongArray counts = new AtomicLongArray(InvocationSampler.STRIPES << InvocationSampler.SEGMENT_BITS);
+        
+        final AtomicLongArray samples = new AtomicLongArray(InvocationSampler.SEGMENT_SIZE);
+        
+        final AtomicLongArray times = new AtomicLongArray(InvocationSampler.SEGMENT_SIZE);
+        
+        long getCount(int offset) {
+            long count = 0;
+            for (int stripe = 0; stripe < InvocationSampler.STRIPES; stripe++) {
+                count += this.counts.get((stripe << InvocationSampler.SEGMENT_BITS) + offset);
+            }
+            return count;
+        }
+        
+        void reset() {
+            for (int i = 0; i < this.counts.length(); i++) {
+                this.counts.set(i, 0L);
+            }
+            for (int i = 0; i < InvocationSampler.SEGMENT_SIZE; i++) {
+                this.samples.set(i, 0L);
+                this.times.set(i, 0L);
+            }
+        }
+        
+    }
+    
+    /**
+     * MBean implementation, kept separate so that the management methods are
+     * not part of the public API of this class
+     */
+    static final class Bean implements InvocationSamplerMBean {
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #getSiteCount()
+         */
+        @Override
+        public int getSiteCount() {
+            return InvocationSampler.getSites().size();
+        }
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #getTotalInvocations()
+         */
+        @Override
+        public long getTotalInvocations() {
+            long total = 0;
+            for (Count count : InvocationSampler.getCounts()) {
+                total += count.invocations;
+            }
+            return total;
+        }
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #getTimingInterval()
+         */
+        @Override
+        public int getTimingInterval() {
+            return InvocationSampler.timingInterval;
+        }
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #getHotSites(int)
+         */
+        @Override
+        public String[] getHotSites(int count) {
+            List<Count> counts = InvocationSampler.getCounts();
+            String[] hotSites = new String[Math.max(0, Math.min(count, counts.size()))];
+            for (int i = 0; i < hotSites.length; i++) {
+                hotSites[i] = counts.get(i).toString();
+            }
+            return hotSites;
+        }
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #getReport()
+         */
+        @Override
+        public String getReport() {
+            return new GsonBuilder().setPrettyPrinting().create().toJson(InvocationSampler.toJson());
+        }
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #dump()
+         */
+        @Override
+        public void dump() {
+            InvocationSampler.export();
+        }
+
+        /* (non-Javadoc)
+         * @see org.spongepowered.asm.util.perf.InvocationSamplerMBean
+         *      #reset()
+         */
+        @Override
+        public void reset() {
+            InvocationSampler.reset();
+        }
+        
+    }
+    
+    /**
+     * Object name of the MBean
+     */
+    public static final String OBJECT_NAME = "org.spongepowered.mixin:type=InvocationSampler";
+    
+    /**
+     * Internal name of this class, for use by generated code
+     */
+    public static final String INTERNAL_NAME = "org/spongepowered/asm/util/perf/InvocationSampler";
+    
+    static final int SEGMENT_BITS = 10;
+    static final int SEGMENT_SIZE = 1 << InvocationSampler.SEGMENT_BITS;
+    private static final int SEGMENT_MASK = InvocationSampler.SEGMENT_SIZE - 1;
+    
+    /**
+     * Number of counter stripes, a power of two 
+     */
+    static final int STRIPES = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 8) * 2 - 1);
+    private static final int STRIPE_MASK = InvocationSampler.STRIPES - 1;
+    
+    private static final String KEY_HANDLER_SEPARATOR = "::";
+    private static final String KEY_TARGET_SEPARATOR = "->";
+    
+    private static final String SAMPLES_DIR = "sampling";
+    private static final String SAMPLES_FILENAME = "handler_invocations.json";
+    
+    /**
+     * Sorts counts by invocation count, descending
+     */
+    private static final Comparator<Count> BY_INVOCATIONS = new Comparator<Count>() {
+        @Override
+        public int compare(Count a, Count b) {
+            return a.invocations < b.invocations ? 1 : a.invocations > b.invocations ? -1 : a.site.id - b.site.id;
+        }
+    };
+    
+    /**
+     * Registered sites, guarded by the class lock 
+     */
+    private static final List<Site> sites = new ArrayList<Site>();
+    
+    /**
+     * Registered sites indexed by id, for checking the ids passed by
+     * instrumented code without taking the class lock. Slots are filled in
+     * under the class lock and the array is replaced when it is grown, so a
+     * slot may be observed as null. 
+     */
+    private static volatile Site[] siteTable = new Site[InvocationSampler.SEGMENT_SIZE];
+    
+    /**
+     * Site ids by site key, only modified whilst holding the class lock 
+     */
+    private static final Map<String, Integer> siteIds = new ConcurrentHashMap<String, Integer>();
+    
+    /**
+     * Counter segments, replaced with a larger array when sites are added 
+     */
+    private static volatile Segment[] segments = new Segment[0];
+    
+    /**
+     * Mask applied to invocation counts to decide whether to time an
+     * invocation 
+     */
+    private static int timingMask;
+    
+    /**
+     * Timing interval, 0 if timing is disabled 
+     */
+    private static int timingInterval;
+    
+    /**
+     * True if sampling is enabled, only valid once resolved 
+     */
+    private static boolean enabled;
+    
+    /**
+     * True once the options have been resolved 
+     */
+    private static volatile boolean resolved;
+    
+    private InvocationSampler() {
+    }
+    
+    private static void resolve() {
+        if (!InvocationSampler.resolved) {
+            synchronized (InvocationSampler.class) {
+                if (!InvocationSampler.resolved) {
+                    MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+                    if (environment != null && environment.getOption(Option.DEBUG_SAMPLE_HANDLERS)) {
+                        InvocationSampler.start(environment);
+                    }
+                    InvocationSampler.resolved = true;
+                }
+            }
+        }
+    }
+
+    private static void start(MixinEnvironment environment) {
+        int interval = InvocationSampler.parseInt(environment.getOptionValue(Option.DEBUG_SAMPLE_HANDLERS_TIMING));
+        if (interval > 0) {
+            InvocationSampler.timingInterval = Integer.highestOneBit(Math.min(interval, 1 << 30) * 2 - 1);
+            InvocationSampler.timingMask = InvocationSampler.timingInterval - 1;
+        }
+        InvocationSampler.enabled = true;
+        
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(new Bean(), InvocationSamplerMBean.class),
+                    new ObjectName(InvocationSampler.OBJECT_NAME));
+        } catch (Exception ex) {
+            InvocationSampler.getLogger().warn("Could not register handler invocation sampler MBean: {}", ex.getMessage());
+        }
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Mixin Invocation Sampler Writer") {
+            @Override
+            public void run() {
+                InvocationSampler.export();
+            }
+        });
+        
+        int dumpInterval = InvocationSampler.parseInt(environment.getOptionValue(Option.DEBUG_SAMPLE_HANDLERS_DUMP));
+        if (dumpInterval > 0) {
+            long period = dumpInterval * 1000L;
+            new Timer("Mixin Invocation Sampler", true).schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    InvocationSampler.export();
+                }
+            }, period, period);
+        }
+    }
+    
+    /**
+     * The logger is only retrieved when needed, since instrumented code may
+     * initialise this class somewhere the mixin service is not available
+     */
+    private static ILogger getLogger() {
+        return MixinService.getService().getLogger("mixin");
+    }
+    
+    private static int parseInt(String value) {
+        try {
+            return value != null ? Integer.parseInt(value.trim()) : 0;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Get whether handler invocations should be instrumented
+     */
+    public static boolean isEnabled() {
+        InvocationSampler.resolve();
+        return InvocationSampler.enabled;
+    }
+    
+    /**
+     * Get whether handler invocations should be timed, if so then call sites
+     * should use {@link #enter} and {@link #exit} instead of {@link #hit}
+     */
+    public static boolean isTimingEnabled() {
+        InvocationSampler.resolve();
+        return InvocationSampler.timingInterval > 0;
+    }
+    
+    /**
+     * Get the key which identifies a handler call site, instrumented code
+     * passes the key to the instrumentation methods along with the site id
+     * 
+     * @param mixin Mixin class name
+     * @param handler Handler method name
+     * @param target Target method
+     * @return site key
+     */
+    public static String getKey(String mixin, String handler, String target) {
+        return mixin + InvocationSampler.KEY_HANDLER_SEPARATOR + handler + InvocationSampler.KEY_TARGET_SEPARATOR + target;
+    }
+    
+    /**
+     * Register a handler call site, sites with the same mixin, handler and
+     * target share an id
+     * 
+     * @param mixin Mixin class name
+     * @param handler Handler method name
+     * @param target Target method
+     * @return id to pass to the instrumentation methods, or <tt>-1</tt> if
+     *      sampling is disabled
+     */
+    public static int register(String mixin, String handler, String target) {
+        if (!InvocationSampler.isEnabled()) {
+            return -1;
+        }
+        return InvocationSampler.register(InvocationSampler.getKey(mixin, handler, target), mixin, handler, target);
+    }
+    
+    private static synchronized int register(String key, String mixin, String handler, String target) {
+        Integer id = InvocationSampler.siteIds.get(key);
+        if (id != null) {
+            return id.intValue();
+        }
+        
+        int nextId = InvocationSampler.sites.size();
+        Segment[] segments = InvocationSampler.segments;
+        if ((nextId >>> InvocationSampler.SEGMENT_BITS) >= segments.length) {
+            Segment[] grown = new Segment[segments.length + 1];
+            System.arraycopy(segments, 0, grown, 0, segments.length);
+            grown[segments.length] = new Segment();
+            InvocationSampler.segments = grown;
+        }
+        Site[] siteTable = InvocationSampler.siteTable;
+        if (nextId >= siteTable.length) {
+            Site[] grown = new Site[siteTable.length << 1];
+            System.arraycopy(siteTable, 0, grown, 0, siteTable.length);
+            InvocationSampler.siteTable = siteTable = grown;
+        }
+        Site site = new Site(nextId, key.intern(), mixin, handler, target);
+        InvocationSampler.sites.add(site);
+        siteTable[nextId] = site;
+        InvocationSampler.siteIds.put(key, Integer.valueOf(nextId));
+        return nextId;
+    }
+    
+    /**
+     * Resolve the id of a site passed by instrumented code. The id is used if
+     * it was registered for the supplied key in this VM, otherwise the site is
+     * looked up (and if necessary registered) by its key
+     * 
+     * @param site Site id
+     * @param key Site key
+     * @return resolved id, or <tt>-1</tt> if sampling is disabled
+     */
+    private static int resolve(int site, String key) {
+        Site[] siteTable = InvocationSampler.siteTable;
+        if (site >= 0 && site < siteTable.length) {
+            Site registered = siteTable[site];
+            if (registered != null && registered.key == key) {
+                return site;
+            }
+        }
+        
+        Integer id = InvocationSampler.siteIds.get(key);
+        if (id != null) {
+            return id.intValue();
+        }
+        
+        // Only sample unknown sites if sampling was enabled by the transformer
+        // in this VM, instrumented code may run where mixin is not available
+        if (!InvocationSampler.resolved || !InvocationSampler.enabled) {
+            return -1;
+        }
+        
+        int handlerPos = key.indexOf(InvocationSampler.KEY_HANDLER_SEPARATOR);
+        int targetPos = handlerPos < 0 ? -1 : key.indexOf(InvocationSampler.KEY_TARGET_SEPARATOR, handlerPos);
+        if (targetPos < 0) {
+            return -1;
+        }
+        return InvocationSampler.register(key, key.substring(0, handlerPos),
+                key.substring(handlerPos + InvocationSampler.KEY_HANDLER_SEPARATOR.length(), targetPos),
+                key.substring(targetPos + InvocationSampler.KEY_TARGET_SEPARATOR.length()));
+    }
+    
+    /**
+     * Record an invocation of the specified site, called from instrumented
+     * code
+     * 
+     * @param site Site id
+     * @param key Site key
+     */
+    public static void hit(int site, String key) {
+        site = InvocationSampler.resolve(site, key);
+        Segment segment = InvocationSampler.getSegment(site);
+        if (segment != null) {
+            segment.counts.incrementAndGet(InvocationSampler.getIndex(site));
+        }
+    }
+    
+    /**
+     * Record an invocation of the specified site, called from instrumented
+     * code before the handler is invoked
+     * 
+     * @param site Site id
+     * @param key Site key
+     * @return start time if this invocation is sampled, <tt>0</tt> otherwise
+     */
+    public static long enter(int site, String key) {
+        site = InvocationSampler.resolve(site, key);
+        Segment segment = InvocationSampler.getSegment(site);
+        if (segment == null) {
+            return 0L;
+        }
+        long count = segment.counts.incrementAndGet(InvocationSampler.getIndex(site));
+        return (count & InvocationSampler.timingMask) == 0 ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Record the handler time for a sampled invocation, called from
+     * instrumented code after the handler returns or throws
+     * 
+     * @param site Site id
+     * @param key Site key
+     * @param start Value returned by {@link #enter}
+     */
+    public static void exit(int site, String key, long start) {
+        if (start != 0L) {
+            long elapsed = System.nanoTime() - start;
+            site = InvocationSampler.resolve(site, key);
+            Segment segment = InvocationSampler.getSegment(site);
+            if (segment != null) {
+                segment.times.addAndGet(site & InvocationSampler.SEGMENT_MASK, elapsed);
+                segment.samples.incrementAndGet(site & InvocationSampler.SEGMENT_MASK);
+            }
+        }
+    }
+    
+    /**
+     * Get the segment for the specified resolved site id, returns null if the
+     * site is not registered
+     */
+    private static Segment getSegment(int site) {
+        if (site < 0) {
+            return null;
+        }
+        Segment[] segments = InvocationSampler.segments;
+        int index = site >>> InvocationSampler.SEGMENT_BITS;
+        return index < segments.length ? segments[index] : null;
+    }
+    
+    private static int getIndex(int site) {
+        int stripe = (int)Thread.currentThread().getId() & InvocationSampler.STRIPE_MASK;
+        return (stripe << InvocationSampler.SEGMENT_BITS) + (site & InvocationSampler.SEGMENT_MASK);
+    }
+    
+    private static synchronized List<Site> getSites() {
+        return new ArrayList<Site>(InvocationSampler.sites);
+    }
+    
+    /**
+     * Get a snapshot of the counters for all sites, ordered by invocation
+     * count
+     */
+    static List<Count> getCounts() {
+        List<Site> sites = InvocationSampler.getSites();
+        Segment[] segments = InvocationSampler.segments;
+        List<Count> counts = new ArrayList<Count>(sites.size());
+        for (Site site : sites) {
+            Segment segment = segments[site.id >>> InvocationSampler.SEGMENT_BITS];
+            int offset = site.id & InvocationSampler.SEGMENT_MASK;
+            counts.add(new Count(site, segment.getCount(offset), segment.samples.get(offset), segment.times.get(offset)));
+        }
+        Collections.sort(counts, InvocationSampler.BY_INVOCATIONS);
+        return counts;
+    }
+    
+    static void reset() {
+        for (Segment segment : InvocationSampler.segments) {
+            segment.reset();
+        }
+    }
+    
+    /**
+     * Get the counters for all sites as json
+     */
+    static JsonObject toJson() {
+        JsonArray sitesJson = new JsonArray();
+        long total = 0;
+        for (Count count : InvocationSampler.getCounts()) {
+            sitesJson.add(count.toJson());
+            total += count.invocations;
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("invocations", Long.valueOf(total));
+        json.addProperty("timing_interval", Integer.valueOf(InvocationSampler.timingInterval));
+        json.add("sites", sitesJson);
+        return json;
+    }
+    
+    /**
+     * Write the counters for all sites to the debug output directory
+     */
+    static synchronized void export() {
+        if (InvocationSampler.sites.isEmpty()) {
+            return;
+        }
+        
+        File file = new File(new File(Constants.DEBUG_OUTPUT_DIR, InvocationSampler.SAMPLES_DIR), InvocationSampler.SAMPLES_FILENAME);
+        file.getParentFile().mkdirs();
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8);
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            gson.toJson(InvocationSampler.toJson(), writer);
+        } catch (IOException ex) {
+            InvocationSampler.getLogger().error("Could not write handler invocation counts to {}: {}", file, ex.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+/**
+ * Management interface for the {@link InvocationSampler}, registered with the
+ * platform MBean server as {@value InvocationSampler#OBJECT_NAME} when handler
+ * invocation sampling is enabled.
+ */
+public interface InvocationSamplerMBean {
+    
+    /**
+     * Get the number of instrumented handler sites
+     */
+    public abstract int getSiteCount();
+    
+    /**
+     * Get the total number of handler invocations across all sites
+     */
+    public abstract long getTotalInvocations();
+    
+    /**
+     * Get the sampling interval for handler timings, <tt>0</tt> if timings
+     * are not being sampled
+     */
+    public abstract int getTimingInterval();
+    
+    /**
+     * Get a summary of the most frequently invoked handler sites, one site
+     * per line, ordered by invocation count
+     * 
+     * @param count Maximum number of sites to return
+     * @return site summaries
+     */
+    public abstract String[] getHotSites(int count);
+    
+    /**
+     * Get the full report for all sites as json
+     */
+    public abstract String getReport();
+    
+    /**
+     * Write the report to the debug output directory now
+     */
+    public abstract void dump();
+    
+    /**
+     * Reset all invocation counts and timings to zero
+     */
+    public abstract void reset();
+
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+import org.spongepowered.asm.service.IMixinMetrics;
+import org.spongepowered.asm.service.IMixinMetrics.Metric;
+import org.spongepowered.asm.service.IMixinService;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.service.MixinServiceAbstract;
+
+/**
+ * Entry point for instrumentation sites in the mixin pipeline which record
+ * counters to the service's {@link IMixinMetrics metrics sink}. The sink is
+ * resolved the first time it is needed, if the service does not supply one
+ * then all methods in this class are effectively no-ops and callers should
+ * check {@link #isEnabled} before computing anything expensive to record.
+ */
+public final class Metrics {
+    
+    /**
+     * Resolved sink, may be null 
+     */
+    private static IMixinMetrics sink;
+    
+    /**
+     * True once the sink has been resolved 
+     */
+    private static volatile boolean resolved;
+    
+    /**
+     * Thread MX bean and the HotSpot allocation accounting method, if the
+     * current VM supports it 
+     */
+    private static Object threadBean;
+    private static Method getThreadAllocatedBytes;
+
+    private Metrics() {
+    }
+    
+    private static IMixinMetrics getSink() {
+        if (!Metrics.resolved) {
+            synchronized (Metrics.class) {
+                if (!Metrics.resolved) {
+                    IMixinService service = MixinService.getService();
+                    if (service instanceof MixinServiceAbstract) {
+                        Metrics.sink = ((MixinServiceAbstract)service).getMixinMetrics();
+                    }
+                    if (Metrics.sink != null) {
+                        Metrics.initAllocationAccounting();
+                    }
+                    Metrics.resolved = true;
+                }
+            }
+        }
+        return Metrics.sink;
+    }
+
+    private static void initAllocationAccounting() {
+        try {
+            Object bean = ManagementFactory.getThreadMXBean();
+            Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (beanClass.isInstance(bean) && ((Boolean)beanClass.getMethod("isThreadAllocatedMemorySupported").invoke(bean)).booleanValue()) {
+                Metrics.getThreadAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+                Metrics.threadBean = bean;
+            }
+        } catch (Throwable th) {
+            // Allocation accounting not available on this VM
+        }
+    }
+    
+    /**
+     * Get whether metrics are being collected
+     */
+    public static boolean isEnabled() {
+        return Metrics.getSink() != null;
+    }
+    
+    /**
+     * Get a timestamp for use as the start time of a measurement, returns
+     * <tt>0</tt> without querying the clock if metrics are disabled
+     */
+    public static long start() {
+        return Metrics.getSink() != null ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Get the number of bytes allocated by the current thread, or <tt>-1</tt>
+     * if metrics are disabled or allocation accounting is not supported by
+     * the VM
+     */
+    public static long allocatedBytes() {
+        if (Metrics.getSink() == null || Metrics.threadBean == null) {
+            return -1L;
+        }
+        try {
+            return ((Long)Metrics.getThreadAllocatedBytes.invoke(Metrics.threadBean, Long.valueOf(Thread.currentThread().getId()))).longValue();
+        } catch (Throwable th) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Record a counter value
+     * 
+     * @param mixin Mixin name, can be null for target class counters
+     * @param member Mixin member name, can be null for mixin counters
+     * @param target Target class name
+     * @param metric Counter to record
+     * @param value Value to add to the counter
+     */
+    public static void record(String mixin, String member, String target, Metric metric, long value) {
+        IMixinMetrics sink = Metrics.getSink();
+        if (sink != null) {
+            sink.record(mixin, member, target, metric, value);
+        }
+    }
+
+    /**
+     * Record the time elapsed since the supplied start time
+     * 
+     * @param mixin Mixin name, can be null for target class counters
+     * @param member Mixin member name, can be null for mixin counters
+     * @param target Target class name
+     * @param metric Counter to record
+     * @param start Start time obtained from {@link #start}
+     */
+    public static void recordTime(String mixin, String member, String target, Metric metric, long start) {
+        IMixinMetrics sink = Metrics.getSink();
+        if (sink != null) {
+            sink.record(mixin, member, target, metric, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the number of bytes allocated since the supplied starting value,
+     * does nothing if allocation accounting is unavailable
+     * 
+     * @param mixin Mixin name, can be null for target class counters
+     * @param member Mixin member name, can be null for mixin counters
+     * @param target Target class name
+     * @param start Starting value obtained from {@link #allocatedBytes}
+     */
+    public static void recordAllocated(String mixin, String member, String target, long start) {
+        if (start < 0) {
+            return;
+        }
+        long allocated = Metrics.allocatedBytes();
+        if (allocated >= start) {
+            Metrics.record(mixin, member, target, Metric.ALLOCATED_BYTES, allocated - start);
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.service.IMixinMetrics;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants;
+
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Built-in {@link IMixinMetrics} implementation which accumulates counters in
+ * memory and writes them to the debug output directory as json when the VM
+ * exits. Mixins, their members and target classes are each sorted by the
+ * total time attributed to them, so that the most expensive entries appear
+ * first in the report.
+ */
+public final class MetricsRecorder implements IMixinMetrics {
+    
+    /**
+     * Accumulated counters for a single mixin, mixin member or target
+     */
+    static final class Counters {
+        
+        final String name;
+        
+        final AtomicLongArray values = new AtomicLongArray(Metric.values().length);
+        
+        Counters(String name) {
+            this.name = name;
+        }
+        
+        void add(Metric metric, long value) {
+            this.values.addAndGet(metric.ordinal(), value);
+        }
+        
+        long get(Metric metric) {
+            return this.values.get(metric.ordinal());
+        }
+        
+        long getTotalTime() {
+            // Injector times are included in apply time where it is recorded
+            long applyTime = this.get(Metric.APPLY_TIME);
+            if (applyTime == 0) {
+                applyTime = this.get(Metric.FIND_TIME) + this.get(Metric.PREINJECT_TIME) + this.get(Metric.INJECT_TIME);
+            }
+            return applyTime + this.get(Metric.WRITE_TIME);
+        }
+        
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", this.name);
+            for (Metric metric : Metric.values()) {
+                long value = this.get(metric);
+                if (value != 0) {
+                    json.addProperty(metric.name().toLowerCase(Locale.ROOT), Long.valueOf(value));
+                }
+            }
+            return json;
+        }
+        
+    }
+    
+    /**
+     * Sorts counters by total time, descending 
+     */
+    static final Comparator<Counters> BY_TOTAL_TIME = new Comparator<Counters>() {
+        @Override
+        public int compare(Counters a, Counters b) {
+            long timeA = a.getTotalTime();
+            long timeB = b.getTotalTime();
+            return timeA < timeB ? 1 : timeA > timeB ? -1 : a.name.compareTo(b.name);
+        }
+    };
+
+    private static final String METRICS_DIR = "metrics";
+    private static final String METRICS_FILENAME = "mixin_metrics.json";
+
+    /**
+     * Key used for counters recorded against the mixin as a whole
+     */
+    private static final String MIXIN_KEY = "";
+    
+    private static MetricsRecorder instance;
+    
+    private final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Counters by mixin then by member 
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Counters>> mixins = new ConcurrentHashMap<String, ConcurrentMap<String, Counters>>();
+    
+    /**
+     * Counters by target class 
+     */
+    private final ConcurrentMap<String, Counters> targets = new ConcurrentHashMap<String, Counters>();
+    
+    private MetricsRecorder() {
+    }
+
+    /**
+     * Get the recorder, the recorder is created on first access and will
+     * write its report to disk when the VM exits
+     */
+    public static synchronized MetricsRecorder getInstance() {
+        if (MetricsRecorder.instance == null) {
+            final MetricsRecorder recorder = new MetricsRecorder();
+            Runtime.getRuntime().addShutdownHook(new Thread("Mixin Metrics Writer") {
+                @Override
+                public void run() {
+                    recorder.export(new File(new File(Constants.DEBUG_OUTPUT_DIR, MetricsRecorder.METRICS_DIR), MetricsRecorder.METRICS_FILENAME));
+                }
+            });
+            MetricsRecorder.instance = recorder;
+        }
+        return MetricsRecorder.instance;
+    }
+    
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinMetrics#record(
+     *      java.lang.String, java.lang.String, java.lang.String,
+     *      org.spongepowered.asm.service.IMixinMetrics.Metric, long)
+     */
+    @Override
+    public void record(String mixin, String member, String target, Metric metric, long value) {
+        if (mixin != null) {
+            MetricsRecorder.getCounters(MetricsRecorder.getMembers(this.mixins, mixin), member != null ? member : MetricsRecorder.MIXIN_KEY)
+                    .add(metric, value);
+        }
+        if (target != null) {
+            MetricsRecorder.getCounters(this.targets, target).add(metric, value);
+        }
+    }
+    
+    /**
+     * Get the recorded metrics as json
+     */
+    public JsonObject toJson() {
+        List<Counters> mixinTotals = new ArrayList<Counters>();
+        for (Entry<String, ConcurrentMap<String, Counters>> mixin : this.mixins.entrySet()) {
+            Counters total = new Counters(mixin.getKey());
+            for (Counters counters : mixin.getValue().values()) {
+                for (Metric metric : Metric.values()) {
+                    // Apply time already includes the time spent by members
+                    if (counters.name.length() == 0 || metric != Metric.APPLY_TIME) {
+                        total.add(metric, counters.get(metric));
+                    }
+                }
+            }
+            mixinTotals.add(total);
+        }
+        Collections.sort(mixinTotals, MetricsRecorder.BY_TOTAL_TIME);
+        
+        JsonArray mixinsJson = new JsonArray();
+        for (Counters total : mixinTotals) {
+            JsonObject mixinJson = total.toJson();
+            List<Counters> members = new ArrayList<Counters>();
+            for (Counters counters : this.mixins.get(total.name).values()) {
+                if (counters.name.length() > 0) {
+                    members.add(counters);
+                }
+            }
+            if (!members.isEmpty()) {
+                Collections.sort(members, MetricsRecorder.BY_TOTAL_TIME);
+                JsonArray membersJson = new JsonArray();
+                for (Counters member : members) {
+                    membersJson.add(member.toJson());
+                }
+                mixinJson.add("members", membersJson);
+            }
+            mixinsJson.add(mixinJson);
+        }
+        
+        List<Counters> targets = new ArrayList<Counters>(this.targets.values());
+        Collections.sort(targets, MetricsRecorder.BY_TOTAL_TIME);
+        JsonArray targetsJson = new JsonArray();
+        for (Counters target : targets) {
+            targetsJson.add(target.toJson());
+        }
+        
+        JsonObject json = new JsonObject();
+        json.add("mixins", mixinsJson);
+        json.add("targets", targetsJson);
+        return json;
+    }
+    
+    /**
+     * Write the recorded metrics to the specified file as json
+     * 
+     * @param file File to write
+     */
+    public void export(File file) {
+        if (this.mixins.isEmpty() && this.targets.isEmpty()) {
+            return;
+        }
+        
+        file.getParentFile().mkdirs();
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8);
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            gson.toJson(this.toJson(), writer);
+        } catch (IOException ex) {
+            this.logger.error("Could not write mixin metrics to {}: {}", file, ex.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static ConcurrentMap<String, Counters> getMembers(ConcurrentMap<String, ConcurrentMap<String, Counters>> map, String key) {
+        ConcurrentMap<String, Counters> members = map.get(key);
+        if (members == null) {
+            ConcurrentMap<String, Counters> created = new ConcurrentHashMap<String, Counters>();
+            members = map.putIfAbsent(key, created);
+            if (members == null) {
+                members = created;
+            }
+        }
+        return members;
+    }
+
+    private static Counters getCounters(ConcurrentMap<String, Counters> map, String key) {
+        Counters counters = map.get(key);
+        if (counters == null) {
+            Counters created = new Counters(key);
+            counters = map.putIfAbsent(key, created);
+            if (counters == null) {
+                counters = created;
+            }
+        }
+        return counters;
+    }
+
+}
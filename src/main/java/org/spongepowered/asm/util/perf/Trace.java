@@ -0,0 +1,128 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.io.File;
+
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.util.Constants;
+
+/**
+ * Entry point for instrumentation sites which record spans to the
+ * transformation trace. The trace is enabled by the <tt>mixin.debug.trace</tt>
+ * option and is written to the .mixin.out directory in the Chrome trace event
+ * format, which shows the work done for each target class as a timeline
+ * broken down by thread. Spans are recorded by obtaining a start time from
+ * {@link #start} and passing it to {@link #end} once the work completes,
+ * spans on the same thread which nest in time are displayed nested.
+ * 
+ * <p>If tracing is disabled then all methods in this class are effectively
+ * no-ops.</p>
+ */
+public final class Trace {
+    
+    /**
+     * Trace categories 
+     */
+    public static final String TARGET = "target";
+    public static final String CLASSINFO = "classinfo";
+    public static final String MIXIN = "mixin";
+    public static final String IO = "io";
+
+    private static final String TRACE_DIR = "trace";
+    private static final String TRACE_FILENAME = "mixin_trace.json";
+    
+    /**
+     * Resolved writer, null if tracing is disabled 
+     */
+    private static TraceWriter writer;
+    
+    /**
+     * True once the writer has been resolved 
+     */
+    private static volatile boolean resolved;
+    
+    private Trace() {
+    }
+    
+    private static TraceWriter getWriter() {
+        if (!Trace.resolved) {
+            synchronized (Trace.class) {
+                if (!Trace.resolved) {
+                    MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+                    if (environment != null && environment.getOption(Option.DEBUG_TRACE)) {
+                        Trace.writer = new TraceWriter(new File(new File(Constants.DEBUG_OUTPUT_DIR, Trace.TRACE_DIR), Trace.TRACE_FILENAME));
+                    }
+                    Trace.resolved = true;
+                }
+            }
+        }
+        return Trace.writer;
+    }
+    
+    /**
+     * Get whether the trace is being recorded
+     */
+    public static boolean isEnabled() {
+        return Trace.getWriter() != null;
+    }
+    
+    /**
+     * Get a timestamp for use as the start time of a span, returns <tt>0</tt>
+     * without querying the clock if tracing is disabled
+     */
+    public static long start() {
+        return Trace.getWriter() != null ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Record a span which began at the supplied start time and ends now
+     * 
+     * @param category Span category
+     * @param name Span name
+     * @param start Start time obtained from {@link #start}
+     */
+    public static void end(String category, String name, long start) {
+        Trace.end(category, name, start, null, null);
+    }
+    
+    /**
+     * Record a span which began at the supplied start time and ends now
+     * 
+     * @param category Span category
+     * @param name Span name
+     * @param start Start time obtained from {@link #start}
+     * @param argName Name of an argument to attach to the span
+     * @param argValue Argument value
+     */
+    public static void end(String category, String name, long start, String argName, String argValue) {
+        TraceWriter writer = Trace.getWriter();
+        if (writer != null && start != 0L) {
+            writer.writeEvent(category, name, start, System.nanoTime(), argName, argValue);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.service.MixinService;
+
+import com.google.common.base.Charsets;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streams trace events to disk in the Chrome trace event format, which can be
+ * loaded directly into <tt>chrome://tracing</tt> or the Perfetto UI. Events
+ * are written as they are recorded rather than being collected in memory, the
+ * enclosing array is closed when the VM exits but both tools will also accept
+ * a truncated file if the VM does not exit cleanly.
+ */
+final class TraceWriter {
+    
+    /**
+     * Process id to report in events, there is only one process in the trace
+     * so the value is arbitrary 
+     */
+    private static final int PID = 1;
+    
+    private final File file;
+    
+    private final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Time origin for the trace, event timestamps are relative to this value
+     */
+    private final long origin = System.nanoTime();
+    
+    /**
+     * Threads which have been named in the trace so far 
+     */
+    private final Set<Long> threads = new HashSet<Long>();
+    
+    private JsonWriter writer;
+
+    TraceWriter(File file) {
+        this.file = file;
+        try {
+            file.getParentFile().mkdirs();
+            this.writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8)));
+            this.writer.beginArray();
+        } catch (IOException ex) {
+            this.logger.warn("Could not open trace file {}: {}", file, ex.getMessage());
+            this.writer = null;
+            return;
+        }
+        
+        Runtime.getRuntime().addShutdownHook(new Thread("Mixin Trace Writer") {
+            @Override
+            public void run() {
+                TraceWriter.this.close();
+            }
+        });
+        this.logger.info("Writing mixin transformation trace to {}", file.getAbsolutePath());
+    }
+    
+    /**
+     * Write a complete event
+     * 
+     * @param category Event category
+     * @param name Event name
+     * @param start Start time in nanoseconds
+     * @param end End time in nanoseconds
+     * @param argName Name of the event argument, can be null
+     * @param argValue Value of the event argument
+     */
+    synchronized void writeEvent(String category, String name, long start, long end, String argName, String argValue) {
+        if (this.writer == null) {
+            return;
+        }
+        
+        Thread thread = Thread.currentThread();
+        long tid = thread.getId();
+        try {
+            if (this.threads.add(Long.valueOf(tid))) {
+                this.writer.beginObject()
+                    .name("name").value("thread_name")
+                    .name("ph").value("M")
+                    .name("pid").value(TraceWriter.PID)
+                    .name("tid").value(tid)
+                    .name("args").beginObject().name("name").value(thread.getName()).endObject()
+                    .endObject();
+            }
+            
+            this.writer.beginObject()
+                .name("name").value(name)
+                .name("cat").value(category)
+                .name("ph").value("X")
+                .name("ts").value((start - this.origin) / 1000L)
+                .name("dur").value((end - start) / 1000L)
+                .name("pid").value(TraceWriter.PID)
+                .name("tid").value(tid);
+            if (argName != null) {
+                this.writer.name("args").beginObject().name(argName).value(argValue).endObject();
+            }
+            this.writer.endObject();
+        } catch (IOException ex) {
+            this.logger.warn("Error writing trace file {}, tracing will be disabled: {}", this.file, ex.getMessage());
+            this.close();
+        }
+    }
+    
+    /**
+     * Close the enclosing array and the trace file
+     */
+    synchronized void close() {
+        if (this.writer == null) {
+            return;
+        }
+        
+        try {
+            this.writer.endArray();
+            this.writer.close();
+        } catch (IOException ex) {
+            this.logger.debug("Error closing trace file {}: {}", this.file, ex.getMessage());
+        } catch (IllegalStateException ex) {
+            // Array was not open because a previous write failed part-way
+        }
+        this.writer = null;
+    }
+
+}
@@ -99,6 +99,7 @@ module org.spongepowered.mixin {
     exports org.spongepowered.asm.util.asm;
     exports org.spongepowered.asm.util.perf;
     exports org.spongepowered.tools.agent;
+    exports org.spongepowered.tools.bake;
     exports org.spongepowered.tools.obfuscation;
     exports org.spongepowered.tools.obfuscation.ext;
     exports org.spongepowered.tools.obfuscation.fg3;